@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+# Sobe um cluster local do rag-hibrido: N nos e um coordenador, cada um em sua
+# propria JVM e porta, opcionalmente fixados em CPUs distintas com taskset.
+#
+# Uso: scripts/cluster-local.sh [nos] [porta-base]
+#   nos         quantidade de nos (padrao 2)
+#   porta-base  porta do coordenador; os nos usam as seguintes (padrao 8080)
+#
+# Variaveis: JAR (padrao target/rag-hibrido-0.0.1-SNAPSHOT.jar, gerado com
+# ./mvnw -DskipTests package), HEAP (padrao 512m), CPUS_PER_NODE (0 = sem
+# taskset) e EXTRA_ARGS (repassados a todas as JVMs, ex.: --ollama.base-url=...).
+# Logs e PIDs ficam em target/cluster/. Ctrl+C encerra todas as JVMs.
+set -euo pipefail
+
+NODES=${1:-2}
+BASE_PORT=${2:-8080}
+JAR=${JAR:-target/rag-hibrido-0.0.1-SNAPSHOT.jar}
+HEAP=${HEAP:-512m}
+CPUS_PER_NODE=${CPUS_PER_NODE:-0}
+EXTRA_ARGS=${EXTRA_ARGS:-}
+OUT=target/cluster
+
+cd "$(dirname "$0")/.."
+if [[ ! -f "$JAR" ]]; then
+    echo "Jar nao encontrado: $JAR (rode ./mvnw -DskipTests package)" >&2
+    exit 1
+fi
+mkdir -p "$OUT"
+
+pids=()
+cleanup() {
+    echo "Encerrando ${#pids[@]} JVMs"
+    kill "${pids[@]}" 2>/dev/null || true
+    wait 2>/dev/null || true
+}
+trap cleanup EXIT INT TERM
+
+# launch <nome> <indice> <porta> [args...]
+launch() {
+    local name=$1 index=$2 port=$3
+    shift 3
+    local prefix=()
+    if (( CPUS_PER_NODE > 0 )); then
+        local first=$(( index * CPUS_PER_NODE ))
+        prefix=(taskset -c "${first}-$(( first + CPUS_PER_NODE - 1 ))")
+    fi
+    # shellcheck disable=SC2086
+    "${prefix[@]}" java -Xmx"$HEAP" -jar "$JAR" --server.port="$port" \
+        --spring.datasource.url="jdbc:h2:mem:$name" $EXTRA_ARGS "$@" > "$OUT/$name.log" 2>&1 &
+    pids+=($!)
+    echo "$!" > "$OUT/$name.pid"
+    echo "$name: porta $port, pid $!, log $OUT/$name.log"
+}
+
+wait_ready() {
+    local port=$1
+    for _ in $(seq 1 240); do
+        if curl -sf "http://localhost:$port/api/rag/metrics" > /dev/null; then
+            return 0
+        fi
+        sleep 0.5
+    done
+    echo "Porta $port nao respondeu" >&2
+    exit 1
+}
+
+node_urls=()
+for (( i = 0; i < NODES; i++ )); do
+    port=$(( BASE_PORT + 1 + i ))
+    launch "node-$i" "$i" "$port"
+    node_urls+=("http://localhost:$port")
+done
+for url in "${node_urls[@]}"; do
+    wait_ready "${url##*:}"
+done
+
+launch coordinator "$NODES" "$BASE_PORT" --rag.cluster.nodes="$(IFS=,; echo "${node_urls[*]}")"
+wait_ready "$BASE_PORT"
+
+echo "Cluster pronto: coordenador em http://localhost:$BASE_PORT/api/cluster (Ctrl+C para encerrar)"
+wait
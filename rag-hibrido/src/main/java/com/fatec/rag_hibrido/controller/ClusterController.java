@@ -0,0 +1,90 @@
+package com.fatec.rag_hibrido.controller;
+
+import com.fatec.rag_hibrido.model.ClusterQueryResponse;
+import com.fatec.rag_hibrido.model.IngestRequest;
+import com.fatec.rag_hibrido.model.QueryRequest;
+import com.fatec.rag_hibrido.service.ClusterCoordinator;
+import com.fatec.rag_hibrido.service.ClusterException;
+import com.fatec.rag_hibrido.service.HybridRAGSystem;
+import com.fatec.rag_hibrido.service.RagAnswer;
+import dev.langchain4j.data.segment.TextSegment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Endpoints do modo coordenador (rag.cluster.nodes). A resposta do LLM é gerada
+ * nesta instância, a partir dos trechos fundidos de todos os nós.
+ */
+@RestController
+@RequestMapping("/api/cluster")
+public class ClusterController {
+
+    private final ClusterCoordinator coordinator;
+    private final HybridRAGSystem ragSystem;
+
+    public ClusterController(ClusterCoordinator coordinator, HybridRAGSystem ragSystem) {
+        this.coordinator = coordinator;
+        this.ragSystem = ragSystem;
+    }
+
+    @PostMapping("/ingest")
+    public ResponseEntity<Object> ingest(@RequestBody IngestRequest request) {
+        if (!coordinator.isEnabled()) {
+            return disabled();
+        }
+        return ResponseEntity.ok(coordinator.ingest(request));
+    }
+
+    @PostMapping("/query")
+    public ResponseEntity<Object> query(@RequestBody QueryRequest request) {
+        if (!coordinator.isEnabled()) {
+            return disabled();
+        }
+        ClusterCoordinator.ScatterGatherResult result = coordinator.retrieveHybrid(request.getCollection(),
+                request.getQuery(), 5);
+        RagAnswer answer = ragSystem.generateAnswer(request.getQuery(), result.segments());
+        return ResponseEntity.ok(new ClusterQueryResponse(answer.text(), sources(result.segments(), 3),
+                answer.source().name(), result.nodesQueried(), result.nodesResponded()));
+    }
+
+    /**
+     * Só a recuperação distribuída, sem chamar o LLM.
+     */
+    @PostMapping("/retrieve")
+    public ResponseEntity<Object> retrieve(@RequestBody QueryRequest request) {
+        if (!coordinator.isEnabled()) {
+            return disabled();
+        }
+        ClusterCoordinator.ScatterGatherResult result = coordinator.retrieveHybrid(request.getCollection(),
+                request.getQuery(), 3);
+        return ResponseEntity.ok(new ClusterQueryResponse(null, sources(result.segments(), 3), null,
+                result.nodesQueried(), result.nodesResponded()));
+    }
+
+    @GetMapping("/nodes")
+    public ResponseEntity<Map<String, Object>> nodes() {
+        return ResponseEntity.ok(coordinator.metrics());
+    }
+
+    @ExceptionHandler(ClusterException.class)
+    public ResponseEntity<String> handleClusterFailure(ClusterException e) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(e.getMessage());
+    }
+
+    private static List<String> sources(List<TextSegment> segments, int max) {
+        return segments.stream()
+                .limit(max)
+                .map(TextSegment::text)
+                .collect(Collectors.toList());
+    }
+
+    private static ResponseEntity<Object> disabled() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("Modo coordenador desligado: configure rag.cluster.nodes");
+    }
+}
@@ -1,17 +1,27 @@
 package com.fatec.rag_hibrido.controller;
 
+import com.fatec.rag_hibrido.model.CandidatesRequest;
+import com.fatec.rag_hibrido.model.CandidatesResponse;
+import com.fatec.rag_hibrido.model.CollectionInfo;
+import com.fatec.rag_hibrido.model.CollectionRequest;
 import com.fatec.rag_hibrido.model.FolderIngestRequest;
 import com.fatec.rag_hibrido.model.IngestRequest;
 import com.fatec.rag_hibrido.model.QueryRequest;
 import com.fatec.rag_hibrido.model.QueryResponse;
+import com.fatec.rag_hibrido.service.CollectionQuotaExceededException;
+import com.fatec.rag_hibrido.service.CollectionSettings;
+import com.fatec.rag_hibrido.service.DocumentParsers;
+import com.fatec.rag_hibrido.service.FolderWatchService;
 import com.fatec.rag_hibrido.service.HybridRAGSystem;
+import com.fatec.rag_hibrido.service.RagAnswer;
+import com.fatec.rag_hibrido.service.RetrievalCandidates;
 import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentParser;
 import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
-import dev.langchain4j.data.document.parser.apache.pdfbox.ApachePdfBoxDocumentParser;
-import dev.langchain4j.data.document.parser.apache.poi.ApachePoiDocumentParser;
-import dev.langchain4j.data.document.parser.TextDocumentParser;
+import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,7 +30,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,9 +42,11 @@ import java.util.stream.Stream;
 public class RagController {
 
     private final HybridRAGSystem ragSystem;
+    private final FolderWatchService folderWatch;
 
-    public RagController(HybridRAGSystem ragSystem) {
+    public RagController(HybridRAGSystem ragSystem, FolderWatchService folderWatch) {
         this.ragSystem = ragSystem;
+        this.folderWatch = folderWatch;
     }
 
     @PostMapping("/ingest")
@@ -44,12 +59,14 @@ public class RagController {
                 })
                 .collect(Collectors.toList());
 
-        ragSystem.loadDocuments(documents);
+        ragSystem.loadDocuments(request.getCollection(), documents);
         return ResponseEntity.ok("Successfully ingested " + documents.size() + " documents.");
     }
 
     @PostMapping("/ingest/folder")
     public ResponseEntity<String> ingestFolder(@RequestBody FolderIngestRequest request) {
+        // Validar a coleção antes de ler a pasta
+        ragSystem.getCollection(request.getCollection());
         try {
             List<Document> documents = new ArrayList<>();
             String folder = request.getFolderPath();
@@ -63,18 +80,9 @@ public class RagController {
             try (Stream<Path> paths = Files.list(folderPath)) {
                 paths.filter(Files::isRegularFile).forEach(path -> {
                     try {
-                        String fileName = path.getFileName().toString().toLowerCase();
-                        Document doc = null;
-                        if (fileName.endsWith(".txt")) {
-                            doc = FileSystemDocumentLoader.loadDocument(path, new TextDocumentParser());
-                        } else if (fileName.endsWith(".pdf")) {
-                            doc = FileSystemDocumentLoader.loadDocument(path, new ApachePdfBoxDocumentParser());
-                        } else if (fileName.endsWith(".doc") || fileName.endsWith(".docx")) {
-                            doc = FileSystemDocumentLoader.loadDocument(path, new ApachePoiDocumentParser());
-                        }
-
-                        if (doc != null) {
-                            documents.add(doc);
+                        DocumentParser parser = DocumentParsers.forFile(path);
+                        if (parser != null) {
+                            documents.add(FileSystemDocumentLoader.loadDocument(path, parser));
                         }
                     } catch (Exception e) {
                         // Logar erro para arquivou específico mas continuar com os outros
@@ -87,8 +95,10 @@ public class RagController {
                 return ResponseEntity.badRequest().body("Nenhum documento encontrado no caminho especificado.");
             }
 
-            ragSystem.loadDocuments(documents);
+            ragSystem.loadDocuments(request.getCollection(), documents);
             return ResponseEntity.ok("Successfully ingested " + documents.size() + " documents from " + folder);
+        } catch (CollectionQuotaExceededException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Erro ao processar pasta: " + e.getMessage());
         }
@@ -96,13 +106,86 @@ public class RagController {
 
     @PostMapping("/query")
     public ResponseEntity<QueryResponse> query(@RequestBody QueryRequest request) {
-        String answer = ragSystem.answer(request.getQuery());
-        List<TextSegment> contexts = ragSystem.retrieveHybrid(request.getQuery(), 3, 0.5, 0.5);
+        RagAnswer answer = ragSystem.answerWithSource(request.getCollection(), request.getQuery());
+        List<TextSegment> contexts = ragSystem.retrieveHybrid(request.getCollection(), request.getQuery(), 3, 0.5,
+                0.5);
 
         List<String> sources = contexts.stream()
                 .map(TextSegment::text)
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(new QueryResponse(answer, sources));
+        return ResponseEntity.ok(new QueryResponse(answer.text(), sources, answer.source().name()));
+    }
+
+    /**
+     * Candidatos locais sem fusão, para o coordenador do cluster combinar com os
+     * dos outros nós.
+     */
+    @PostMapping("/candidates")
+    public ResponseEntity<CandidatesResponse> candidates(@RequestBody CandidatesRequest request) {
+        Embedding queryEmbedding = request.getEmbedding() != null ? Embedding.from(request.getEmbedding()) : null;
+        RetrievalCandidates candidates = ragSystem.retrieveCandidates(request.getCollection(), request.getQuery(),
+                queryEmbedding, request.getMaxResults());
+
+        CandidatesResponse response = new CandidatesResponse();
+        response.setBm25(candidates.bm25().stream()
+                .map(segment -> new CandidatesResponse.Candidate(segment.text(), segment.metadata().toMap(),
+                        Double.parseDouble(
+                                segment.metadata().toMap().getOrDefault("bm25_score", "0.0").toString())))
+                .collect(Collectors.toList()));
+        response.setEmbeddings(candidates.embeddings().stream()
+                .map(match -> new CandidatesResponse.Candidate(match.embedded().text(),
+                        match.embedded().metadata().toMap(), match.score()))
+                .collect(Collectors.toList()));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/collections")
+    public ResponseEntity<List<CollectionInfo>> listCollections() {
+        return ResponseEntity.ok(ragSystem.listCollections().stream()
+                .map(CollectionInfo::new)
+                .collect(Collectors.toList()));
+    }
+
+    @PostMapping("/collections")
+    public ResponseEntity<CollectionInfo> createCollection(@RequestBody CollectionRequest request) {
+        CollectionSettings defaults = ragSystem.getDefaultSettings();
+        CollectionSettings settings = new CollectionSettings(
+                request.getMaxSegmentSize() != null ? request.getMaxSegmentSize() : defaults.maxSegmentSize(),
+                request.getMaxOverlap() != null ? request.getMaxOverlap() : defaults.maxOverlap(),
+                request.getIngestConcurrency() != null ? request.getIngestConcurrency()
+                        : defaults.ingestConcurrency(),
+                request.getQueryConcurrency() != null ? request.getQueryConcurrency() : defaults.queryConcurrency(),
+                request.getMemoryBudgetMb() != null ? request.getMemoryBudgetMb() : defaults.memoryBudgetMb());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(new CollectionInfo(ragSystem.createCollection(request.getName(), settings)));
+    }
+
+    @DeleteMapping("/collections/{name}")
+    public ResponseEntity<String> dropCollection(@PathVariable String name) {
+        ragSystem.dropCollection(name);
+        return ResponseEntity.ok("Collection " + name + " dropped.");
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(ragSystem.metrics());
+        metrics.putAll(folderWatch.metrics());
+        return ResponseEntity.ok(metrics);
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<String> handleNotFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(CollectionQuotaExceededException.class)
+    public ResponseEntity<String> handleQuotaExceeded(CollectionQuotaExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
     }
 }
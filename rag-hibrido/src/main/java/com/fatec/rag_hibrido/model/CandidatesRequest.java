@@ -0,0 +1,40 @@
+package com.fatec.rag_hibrido.model;
+
+public class CandidatesRequest {
+    private String query;
+    private String collection; // Opcional, padrão: "default"
+    private int maxResults = 10; // Por método (BM25 e embeddings)
+    private float[] embedding; // Opcional: embedding da consulta calculado pelo coordenador
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    public float[] getEmbedding() {
+        return embedding;
+    }
+
+    public void setEmbedding(float[] embedding) {
+        this.embedding = embedding;
+    }
+}
@@ -0,0 +1,68 @@
+package com.fatec.rag_hibrido.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Candidatos de um nó, ainda sem fusão, na ordem do ranking local.
+ */
+public class CandidatesResponse {
+    private List<Candidate> bm25 = new ArrayList<>();
+    private List<Candidate> embeddings = new ArrayList<>();
+
+    public List<Candidate> getBm25() {
+        return bm25;
+    }
+
+    public void setBm25(List<Candidate> bm25) {
+        this.bm25 = bm25;
+    }
+
+    public List<Candidate> getEmbeddings() {
+        return embeddings;
+    }
+
+    public void setEmbeddings(List<Candidate> embeddings) {
+        this.embeddings = embeddings;
+    }
+
+    public static class Candidate {
+        private String text;
+        private Map<String, Object> metadata;
+        private double score;
+
+        public Candidate() {
+        }
+
+        public Candidate(String text, Map<String, Object> metadata, double score) {
+            this.text = text;
+            this.metadata = metadata;
+            this.score = score;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+
+        public Map<String, Object> getMetadata() {
+            return metadata;
+        }
+
+        public void setMetadata(Map<String, Object> metadata) {
+            this.metadata = metadata;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public void setScore(double score) {
+            this.score = score;
+        }
+    }
+}
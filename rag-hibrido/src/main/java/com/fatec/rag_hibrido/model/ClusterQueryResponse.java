@@ -0,0 +1,31 @@
+package com.fatec.rag_hibrido.model;
+
+import java.util.List;
+
+public class ClusterQueryResponse extends QueryResponse {
+    private int nodesQueried;
+    private int nodesResponded; // Menor que nodesQueried quando a resposta é parcial
+
+    public ClusterQueryResponse(String answer, List<String> sources, String servedBy, int nodesQueried,
+            int nodesResponded) {
+        super(answer, sources, servedBy);
+        this.nodesQueried = nodesQueried;
+        this.nodesResponded = nodesResponded;
+    }
+
+    public int getNodesQueried() {
+        return nodesQueried;
+    }
+
+    public void setNodesQueried(int nodesQueried) {
+        this.nodesQueried = nodesQueried;
+    }
+
+    public int getNodesResponded() {
+        return nodesResponded;
+    }
+
+    public void setNodesResponded(int nodesResponded) {
+        this.nodesResponded = nodesResponded;
+    }
+}
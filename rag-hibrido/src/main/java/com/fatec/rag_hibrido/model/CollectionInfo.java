@@ -0,0 +1,51 @@
+package com.fatec.rag_hibrido.model;
+
+import com.fatec.rag_hibrido.service.RagCollection;
+
+public class CollectionInfo {
+    private final String name;
+    private final int segments;
+    private final int maxSegmentSize;
+    private final int maxOverlap;
+    private final int ingestConcurrency;
+    private final int queryConcurrency;
+    private final long memoryBudgetMb;
+
+    public CollectionInfo(RagCollection collection) {
+        this.name = collection.getName();
+        this.segments = collection.segmentCount();
+        this.maxSegmentSize = collection.getSettings().maxSegmentSize();
+        this.maxOverlap = collection.getSettings().maxOverlap();
+        this.ingestConcurrency = collection.getSettings().ingestConcurrency();
+        this.queryConcurrency = collection.getSettings().queryConcurrency();
+        this.memoryBudgetMb = collection.getSettings().memoryBudgetMb();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public int getMaxSegmentSize() {
+        return maxSegmentSize;
+    }
+
+    public int getMaxOverlap() {
+        return maxOverlap;
+    }
+
+    public int getIngestConcurrency() {
+        return ingestConcurrency;
+    }
+
+    public int getQueryConcurrency() {
+        return queryConcurrency;
+    }
+
+    public long getMemoryBudgetMb() {
+        return memoryBudgetMb;
+    }
+}
@@ -0,0 +1,59 @@
+package com.fatec.rag_hibrido.model;
+
+public class CollectionRequest {
+    private String name;
+    // Opcionais: quando ausentes valem os padrões rag.collection.* / rag.storage.*
+    private Integer maxSegmentSize;
+    private Integer maxOverlap;
+    private Integer ingestConcurrency;
+    private Integer queryConcurrency;
+    private Long memoryBudgetMb;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getMaxSegmentSize() {
+        return maxSegmentSize;
+    }
+
+    public void setMaxSegmentSize(Integer maxSegmentSize) {
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    public Integer getMaxOverlap() {
+        return maxOverlap;
+    }
+
+    public void setMaxOverlap(Integer maxOverlap) {
+        this.maxOverlap = maxOverlap;
+    }
+
+    public Integer getIngestConcurrency() {
+        return ingestConcurrency;
+    }
+
+    public void setIngestConcurrency(Integer ingestConcurrency) {
+        this.ingestConcurrency = ingestConcurrency;
+    }
+
+    public Integer getQueryConcurrency() {
+        return queryConcurrency;
+    }
+
+    public void setQueryConcurrency(Integer queryConcurrency) {
+        this.queryConcurrency = queryConcurrency;
+    }
+
+    public Long getMemoryBudgetMb() {
+        return memoryBudgetMb;
+    }
+
+    public void setMemoryBudgetMb(Long memoryBudgetMb) {
+        this.memoryBudgetMb = memoryBudgetMb;
+    }
+}
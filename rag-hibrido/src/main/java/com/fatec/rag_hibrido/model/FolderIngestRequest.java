@@ -3,6 +3,7 @@ package com.fatec.rag_hibrido.model;
 public class FolderIngestRequest {
     private String folderPath;
     private String globPattern; // Opcional, ex: "*.txt" ou "**/*.pdf"
+    private String collection; // Opcional, padrão: "default"
 
     public String getFolderPath() {
         return folderPath;
@@ -19,4 +20,12 @@ public class FolderIngestRequest {
     public void setGlobPattern(String globPattern) {
         this.globPattern = globPattern;
     }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
 }
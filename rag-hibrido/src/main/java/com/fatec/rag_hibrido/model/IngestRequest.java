@@ -5,6 +5,7 @@ import java.util.Map;
 
 public class IngestRequest {
     private List<DocumentDto> documents;
+    private String collection; // Opcional, padrão: "default"
 
     public List<DocumentDto> getDocuments() {
         return documents;
@@ -14,6 +15,14 @@ public class IngestRequest {
         this.documents = documents;
     }
 
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
     public static class DocumentDto {
         private String content;
         private Map<String, String> metadata;
@@ -2,6 +2,7 @@ package com.fatec.rag_hibrido.model;
 
 public class QueryRequest {
     private String query;
+    private String collection; // Opcional, padrão: "default"
 
     public String getQuery() {
         return query;
@@ -10,4 +11,12 @@ public class QueryRequest {
     public void setQuery(String query) {
         this.query = query;
     }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
 }
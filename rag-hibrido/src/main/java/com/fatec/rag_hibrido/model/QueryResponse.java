@@ -5,12 +5,18 @@ import java.util.List;
 public class QueryResponse {
     private String answer;
     private List<String> sources;
+    private String servedBy; // LLM_PRIMARY, LLM_HEDGE, EXTRACTIVE_FALLBACK ou NO_CONTEXT
 
     public QueryResponse(String answer, List<String> sources) {
         this.answer = answer;
         this.sources = sources;
     }
 
+    public QueryResponse(String answer, List<String> sources, String servedBy) {
+        this(answer, sources);
+        this.servedBy = servedBy;
+    }
+
     public String getAnswer() {
         return answer;
     }
@@ -26,4 +32,12 @@ public class QueryResponse {
     public void setSources(List<String> sources) {
         this.sources = sources;
     }
+
+    public String getServedBy() {
+        return servedBy;
+    }
+
+    public void setServedBy(String servedBy) {
+        this.servedBy = servedBy;
+    }
 }
@@ -0,0 +1,15 @@
+package com.fatec.rag_hibrido.service;
+
+/**
+ * Caminho que produziu a resposta de uma consulta.
+ */
+public enum AnswerSource {
+    /** Resposta gerada pelo modelo de chat principal. */
+    LLM_PRIMARY,
+    /** Resposta gerada pelo backend secundário (requisição redundante). */
+    LLM_HEDGE,
+    /** LLM indisponível, lento ou saturado: resposta extraída dos trechos. */
+    EXTRACTIVE_FALLBACK,
+    /** Nenhum trecho relevante encontrado; o LLM nem foi chamado. */
+    NO_CONTEXT
+}
@@ -1,6 +1,8 @@
 package com.fatec.rag_hibrido.service;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +12,7 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.*;
@@ -20,47 +23,62 @@ import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.similarities.BM25Similarity;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 
 import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.segment.TextSegment;
 
+/**
+ * Índice BM25 (Lucene). O texto e os metadados de cada segmento ficam como
+ * campos armazenados no próprio índice, então os segmentos não precisam de
+ * uma cópia no heap: com indexDir informado o índice vai para o disco
+ * (FSDirectory/mmap) e só o cache de páginas do SO segura as partes quentes.
+ */
 public class BM25Retriever {
+    private static final String META_PREFIX = "meta_";
+
     private final Directory directory;
     private final IndexWriter writer;
     private final Analyzer analyzer;
-    private final Map<String, TextSegment> idToSegment;
 
     public BM25Retriever() {
+        this(null);
+    }
+
+    /**
+     * @param indexDir diretório do índice em disco, ou null para mantê-lo em
+     *                 memória
+     */
+    public BM25Retriever(Path indexDir) {
         try {
-            this.directory = new ByteBuffersDirectory();
+            this.directory = indexDir == null ? new ByteBuffersDirectory() : FSDirectory.open(indexDir);
             this.analyzer = new StandardAnalyzer();
 
             IndexWriterConfig config = new IndexWriterConfig(analyzer);
-            config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            // O índice em disco não sobrevive ao restart junto com os vetores
+            config.setOpenMode(indexDir == null ? IndexWriterConfig.OpenMode.CREATE_OR_APPEND
+                    : IndexWriterConfig.OpenMode.CREATE);
             this.writer = new IndexWriter(directory, config);
-
-            this.idToSegment = new HashMap<>();
         } catch (Exception e) {
             throw new RuntimeException("Erro ao inicializar BM25Retriever", e);
         }
     }
 
     public void addDocument(TextSegment segment) {
-        try {
-            String id = UUID.randomUUID().toString();
-            idToSegment.put(id, segment);
+        addDocument(UUID.randomUUID().toString(), segment);
+    }
 
+    public void addDocument(String id, TextSegment segment) {
+        try {
             Document doc = new Document();
             doc.add(new StringField("id", id, Field.Store.YES));
             doc.add(new TextField("content", segment.text(), Field.Store.YES));
 
-            // Adicionar metadados
+            // Adicionar metadados com o tipo original, para que o segmento volte
+            // igual ao devolvido pelo store de vetores
             if (segment.metadata() != null) {
                 for (var entry : segment.metadata().toMap().entrySet()) {
-                    doc.add(new StringField(
-                            "meta_" + entry.getKey(),
-                            entry.getValue().toString(),
-                            Field.Store.YES));
+                    doc.add(metadataField(META_PREFIX + entry.getKey(), entry.getValue()));
                 }
             }
             writer.addDocument(doc);
@@ -70,6 +88,34 @@ public class BM25Retriever {
         }
     }
 
+    private static StoredField metadataField(String name, Object value) {
+        if (value instanceof Integer i) {
+            return new StoredField(name, i);
+        } else if (value instanceof Long l) {
+            return new StoredField(name, l);
+        } else if (value instanceof Float f) {
+            return new StoredField(name, f);
+        } else if (value instanceof Double d) {
+            return new StoredField(name, d);
+        }
+        return new StoredField(name, value.toString());
+    }
+
+    /**
+     * Remove os segmentos com os ids informados (reindexação de um arquivo).
+     */
+    public void deleteDocuments(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(ids.stream().map(id -> new Term("id", id)).toArray(Term[]::new));
+            writer.commit();
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao remover documentos do índice", e);
+        }
+    }
+
     public List<TextSegment> retrieve(String query, int maxResults) {
         try {
             IndexReader reader = DirectoryReader.open(directory);
@@ -88,14 +134,18 @@ public class BM25Retriever {
             List<TextSegment> results = new ArrayList<>();
             for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
                 Document doc = searcher.storedFields().document(scoreDoc.doc);
-                String id = doc.get("id");
-                TextSegment segment = idToSegment.get(id);
 
-                // Clonar segment com score
-                Map<String, Object> metadataMap = new HashMap<>(segment.metadata().toMap());
+                // Reconstruir o segmento a partir dos campos armazenados, com score
+                Map<String, Object> metadataMap = new HashMap<>();
+                for (IndexableField field : doc.getFields()) {
+                    if (field.name().startsWith(META_PREFIX)) {
+                        Object value = field.numericValue() != null ? field.numericValue() : field.stringValue();
+                        metadataMap.put(field.name().substring(META_PREFIX.length()), value);
+                    }
+                }
                 metadataMap.put("bm25_score", scoreDoc.score);
 
-                results.add(TextSegment.from(segment.text(), Metadata.from(metadataMap)));
+                results.add(TextSegment.from(doc.get("content"), Metadata.from(metadataMap)));
             }
 
             reader.close();
@@ -0,0 +1,298 @@
+package com.fatec.rag_hibrido.service;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import com.fatec.rag_hibrido.model.CandidatesRequest;
+import com.fatec.rag_hibrido.model.CandidatesResponse;
+import com.fatec.rag_hibrido.model.IngestRequest;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Modo coordenador (scatter-gather): o corpus fica particionado entre várias
+ * instâncias da aplicação (nós) e esta instância distribui a ingestão e a
+ * consulta entre elas.
+ * Na consulta, cada nó devolve seus candidatos BM25 e de embeddings sem fusão
+ * (POST /api/rag/candidates); o coordenador junta as listas de cada método por
+ * score e aplica a mesma RRF do modo local, de modo que o ranking final não
+ * depende de como os documentos foram distribuídos. Os scores de embeddings são
+ * comparáveis entre nós; os do BM25 usam IDF de cada partição, o que é
+ * aceitável com partições grandes e distribuição por hash.
+ * O embedding da consulta é calculado uma vez aqui e enviado a todos os nós,
+ * por isso coordenador e nós precisam usar o mesmo modelo de embeddings.
+ * Cada nó tem um prazo próprio; nós lentos ou fora do ar são ignorados e a
+ * resposta sai com os resultados parciais dos demais.
+ */
+@Service
+public class ClusterCoordinator {
+
+    private final HybridRAGSystem ragSystem;
+    private final List<String> nodes;
+    private final Duration nodeTimeout;
+    private final Duration ingestTimeout;
+    private final RestClient queryClient;
+    private final RestClient ingestClient;
+    private final ExecutorService executor;
+    private final Map<String, NodeStats> stats = new LinkedHashMap<>();
+    private final AtomicLong partialResults = new AtomicLong();
+
+    /**
+     * @param nodes         URLs base dos nós separadas por vírgula (vazio =
+     *                      modo coordenador desligado)
+     * @param nodeTimeoutMs prazo de cada nó na consulta
+     */
+    public ClusterCoordinator(HybridRAGSystem ragSystem, @Value("${rag.cluster.nodes:}") String nodes,
+            @Value("${rag.cluster.node-timeout-ms:2000}") long nodeTimeoutMs,
+            @Value("${rag.cluster.ingest-timeout-ms:60000}") long ingestTimeoutMs) {
+        this.ragSystem = ragSystem;
+        this.nodes = Arrays.stream(nodes.split(","))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .map(node -> node.endsWith("/") ? node.substring(0, node.length() - 1) : node)
+                .collect(Collectors.toList());
+        this.nodeTimeout = Duration.ofMillis(nodeTimeoutMs);
+        this.ingestTimeout = Duration.ofMillis(ingestTimeoutMs);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "cluster-call");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // O timeout de leitura libera a thread da chamada quando o prazo do nó estoura
+        this.queryClient = restClient(nodeTimeout);
+        this.ingestClient = restClient(ingestTimeout);
+
+        this.nodes.forEach(node -> stats.put(node, new NodeStats()));
+        if (isEnabled()) {
+            System.out.println("Modo coordenador: " + this.nodes.size() + " nós " + this.nodes);
+        }
+    }
+
+    public boolean isEnabled() {
+        return !nodes.isEmpty();
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Distribui os documentos entre os nós por hash do conteúdo, de modo que a
+     * mesma ingestão repetida cai sempre no mesmo nó. Falha se algum nó não
+     * confirmar sua parte.
+     *
+     * @return quantidade de documentos enviada a cada nó
+     */
+    public Map<String, Integer> ingest(IngestRequest request) {
+        List<List<IngestRequest.DocumentDto>> partitions = new ArrayList<>();
+        nodes.forEach(node -> partitions.add(new ArrayList<>()));
+        for (IngestRequest.DocumentDto doc : request.getDocuments()) {
+            partitions.get(Math.floorMod(doc.getContent().hashCode(), nodes.size())).add(doc);
+        }
+
+        Map<String, CompletableFuture<Void>> calls = new LinkedHashMap<>();
+        Map<String, Integer> sent = new LinkedHashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            String node = nodes.get(i);
+            List<IngestRequest.DocumentDto> partition = partitions.get(i);
+            sent.put(node, partition.size());
+            if (partition.isEmpty()) {
+                continue;
+            }
+            IngestRequest part = new IngestRequest();
+            part.setCollection(request.getCollection());
+            part.setDocuments(partition);
+            calls.put(node, call(node, () -> {
+                ingestClient.post()
+                        .uri(node + "/api/rag/ingest")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(part)
+                        .retrieve()
+                        .toBodilessEntity();
+                return null;
+            }, ingestTimeout));
+        }
+
+        List<String> failed = new ArrayList<>();
+        calls.forEach((node, future) -> {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                failed.add(node + " (" + describe(e.getCause()) + ")");
+            }
+        });
+        if (!failed.isEmpty()) {
+            throw new ClusterException("Ingestão falhou nos nós: " + String.join(", ", failed));
+        }
+        return sent;
+    }
+
+    /**
+     * Consulta todos os nós em paralelo e funde os candidatos com RRF. Aceita
+     * resultados parciais, mas falha se nenhum nó responder.
+     */
+    public ScatterGatherResult retrieveHybrid(String collection, String query, int maxResults) {
+        CandidatesRequest request = new CandidatesRequest();
+        request.setCollection(collection);
+        request.setQuery(query);
+        request.setMaxResults(maxResults * 2);
+        // Um único embedding para todos os nós, em vez de um por nó
+        request.setEmbedding(ragSystem.embedQuery(query).vector());
+
+        List<CompletableFuture<CandidatesResponse>> calls = nodes.stream()
+                .map(node -> call(node, () -> queryClient.post()
+                        .uri(node + "/api/rag/candidates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(request)
+                        .retrieve()
+                        .body(CandidatesResponse.class), nodeTimeout)
+                        // Nó que falhou ou estourou o prazo fica de fora
+                        .exceptionally(error -> null))
+                .collect(Collectors.toList());
+
+        List<CandidatesResponse> responses = calls.stream()
+                .map(CompletableFuture::join)
+                .filter(response -> response != null)
+                .collect(Collectors.toList());
+        if (responses.isEmpty()) {
+            // Sem nenhum nó não dá para distinguir "sem resposta no corpus" de "cluster fora"
+            throw new ClusterException("Nenhum dos " + nodes.size() + " nós respondeu dentro do prazo");
+        }
+        if (responses.size() < nodes.size()) {
+            partialResults.incrementAndGet();
+        }
+
+        List<CandidatesResponse.Candidate> bm25 = merge(responses.stream()
+                .flatMap(response -> response.getBm25().stream()), maxResults * 2);
+        List<CandidatesResponse.Candidate> embeddings = merge(responses.stream()
+                .flatMap(response -> response.getEmbeddings().stream()), maxResults * 2);
+
+        List<TextSegment> segments;
+        if (bm25.isEmpty() && embeddings.isEmpty()) {
+            segments = List.of();
+        } else {
+            segments = HybridRAGSystem.reciprocalRankFusion(
+                    bm25.stream().map(ClusterCoordinator::toSegment).collect(Collectors.toList()),
+                    embeddings.stream()
+                            // EmbeddingMatch exige um id; o texto já é único depois do merge
+                            .map(candidate -> new EmbeddingMatch<>(candidate.getScore(), candidate.getText(),
+                                    null, toSegment(candidate)))
+                            .collect(Collectors.toList()),
+                    maxResults);
+        }
+        return new ScatterGatherResult(segments, nodes.size(), responses.size());
+    }
+
+    /**
+     * Junta as listas de vários nós em ordem decrescente de score, descartando
+     * textos repetidos (o mesmo documento ingerido em mais de um nó).
+     */
+    static List<CandidatesResponse.Candidate> merge(Stream<CandidatesResponse.Candidate> candidates,
+            int limit) {
+        Set<String> seen = new HashSet<>();
+        return candidates
+                .sorted(Comparator.comparingDouble(CandidatesResponse.Candidate::getScore).reversed())
+                .filter(candidate -> seen.add(candidate.getText()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private RestClient restClient(Duration readTimeout) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(nodeTimeout)
+                .executor(executor)
+                .build());
+        requestFactory.setReadTimeout(readTimeout);
+        return RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    private static TextSegment toSegment(CandidatesResponse.Candidate candidate) {
+        Metadata metadata = candidate.getMetadata() != null ? Metadata.from(candidate.getMetadata())
+                : new Metadata();
+        return TextSegment.from(candidate.getText(), metadata);
+    }
+
+    private <T> CompletableFuture<T> call(String node, Supplier<T> request, Duration timeout) {
+        NodeStats nodeStats = stats.get(node);
+        nodeStats.requests.incrementAndGet();
+        long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(request, executor)
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> {
+                    nodeStats.totalNanos.addAndGet(System.nanoTime() - start);
+                    if (error == null) {
+                        return;
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        nodeStats.timeouts.incrementAndGet();
+                    } else {
+                        nodeStats.failures.incrementAndGet();
+                        System.err.println("Erro ao chamar o nó " + node + ": " + describe(cause));
+                    }
+                });
+    }
+
+    private static String describe(Throwable error) {
+        return error instanceof TimeoutException ? "prazo esgotado" : String.valueOf(error.getMessage());
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cluster.nodes", nodes.size());
+        metrics.put("cluster.partial_results", partialResults.get());
+        stats.forEach((node, s) -> {
+            long requests = s.requests.get();
+            metrics.put("cluster.node." + node + ".requests", requests);
+            metrics.put("cluster.node." + node + ".timeouts", s.timeouts.get());
+            metrics.put("cluster.node." + node + ".failures", s.failures.get());
+            metrics.put("cluster.node." + node + ".avg_ms",
+                    requests == 0 ? 0.0 : s.totalNanos.get() / 1e6 / requests);
+        });
+        return metrics;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static class NodeStats {
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+    }
+
+    public record ScatterGatherResult(List<TextSegment> segments, int nodesQueried, int nodesResponded) {
+    }
+}
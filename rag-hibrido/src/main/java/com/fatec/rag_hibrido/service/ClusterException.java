@@ -0,0 +1,12 @@
+package com.fatec.rag_hibrido.service;
+
+/**
+ * Falha do cluster: um nó não confirmou a ingestão ou nenhum nó respondeu à
+ * consulta.
+ */
+public class ClusterException extends RuntimeException {
+
+    public ClusterException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.fatec.rag_hibrido.service;
+
+/**
+ * A coleção já está usando todas as vagas de ingestão ou de consulta da sua
+ * cota.
+ */
+public class CollectionQuotaExceededException extends RuntimeException {
+    public CollectionQuotaExceededException(String message) {
+        super(message);
+    }
+}
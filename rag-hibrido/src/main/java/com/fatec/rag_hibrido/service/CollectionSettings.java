@@ -0,0 +1,30 @@
+package com.fatec.rag_hibrido.service;
+
+/**
+ * Configuração de uma coleção: divisão dos documentos, cotas de concorrência
+ * e limite de memória do seu store de vetores dentro do orçamento do sistema.
+ *
+ * @param maxSegmentSize    tamanho máximo de cada segmento (caracteres)
+ * @param maxOverlap        sobreposição entre segmentos (caracteres)
+ * @param ingestConcurrency ingestões simultâneas permitidas na coleção
+ * @param queryConcurrency  consultas simultâneas permitidas na coleção
+ * @param memoryBudgetMb    limite de heap da coleção para vetores e segmentos,
+ *                          além do orçamento compartilhado do sistema (0 = só
+ *                          o compartilhado)
+ */
+public record CollectionSettings(int maxSegmentSize, int maxOverlap, int ingestConcurrency,
+        int queryConcurrency, long memoryBudgetMb) {
+
+    public CollectionSettings {
+        if (maxSegmentSize <= 0 || maxOverlap < 0 || maxOverlap >= maxSegmentSize) {
+            throw new IllegalArgumentException("Tamanho de segmento/sobreposição inválidos: "
+                    + maxSegmentSize + "/" + maxOverlap);
+        }
+        if (ingestConcurrency <= 0 || queryConcurrency <= 0) {
+            throw new IllegalArgumentException("Cotas de concorrência devem ser positivas");
+        }
+        if (memoryBudgetMb < 0) {
+            throw new IllegalArgumentException("Orçamento de memória não pode ser negativo");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.fatec.rag_hibrido.service;
+
+import java.nio.file.Path;
+
+import dev.langchain4j.data.document.DocumentParser;
+import dev.langchain4j.data.document.parser.TextDocumentParser;
+import dev.langchain4j.data.document.parser.apache.pdfbox.ApachePdfBoxDocumentParser;
+import dev.langchain4j.data.document.parser.apache.poi.ApachePoiDocumentParser;
+
+/**
+ * Parser de cada tipo de arquivo aceito na ingestão por pasta (.txt, .pdf,
+ * .doc e .docx).
+ */
+public final class DocumentParsers {
+
+    private DocumentParsers() {
+    }
+
+    /**
+     * @return o parser do arquivo, ou null se a extensão não é suportada
+     */
+    public static DocumentParser forFile(Path path) {
+        String fileName = path.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".txt")) {
+            return new TextDocumentParser();
+        } else if (fileName.endsWith(".pdf")) {
+            return new ApachePdfBoxDocumentParser();
+        } else if (fileName.endsWith(".doc") || fileName.endsWith(".docx")) {
+            return new ApachePoiDocumentParser();
+        }
+        return null;
+    }
+}
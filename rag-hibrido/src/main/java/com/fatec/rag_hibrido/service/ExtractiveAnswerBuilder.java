@@ -0,0 +1,66 @@
+package com.fatec.rag_hibrido.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+/**
+ * Monta uma resposta sem LLM a partir dos trechos já ordenados pelo RRF:
+ * escolhe as frases que mais compartilham termos com a pergunta, dando
+ * preferência aos trechos mais bem posicionados.
+ */
+public class ExtractiveAnswerBuilder {
+    static final String HEADER = "Não foi possível gerar uma resposta com o modelo de linguagem a tempo. "
+            + "Trechos mais relevantes encontrados nos documentos:\n";
+
+    private ExtractiveAnswerBuilder() {
+    }
+
+    public static String build(String query, List<TextSegment> contexts, int maxSentences) {
+        Set<String> queryTerms = terms(query);
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int rank = 0; rank < contexts.size(); rank++) {
+            String[] sentences = contexts.get(rank).text().trim().split("(?<=[.!?])\\s+");
+            for (int i = 0; i < sentences.length; i++) {
+                if (sentences[i].isBlank()) {
+                    continue;
+                }
+                Set<String> sentenceTerms = terms(sentences[i]);
+                sentenceTerms.retainAll(queryTerms);
+                candidates.add(new Candidate(sentences[i].trim(), sentenceTerms.size(), rank, i));
+            }
+        }
+
+        // Mais termos em comum primeiro; empate resolvido pela posição no ranking
+        candidates.sort(Comparator.comparingInt(Candidate::overlap).reversed()
+                .thenComparingInt(Candidate::rank)
+                .thenComparingInt(Candidate::position));
+
+        StringBuilder answer = new StringBuilder(HEADER);
+        candidates.stream()
+                .limit(maxSentences)
+                .sorted(Comparator.comparingInt(Candidate::rank).thenComparingInt(Candidate::position))
+                .forEach(c -> answer.append("- ").append(c.text()).append('\n'));
+        return answer.toString().trim();
+    }
+
+    private static Set<String> terms(String text) {
+        Set<String> terms = new HashSet<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            // Ignora palavras curtas (artigos, preposições)
+            if (token.length() > 2) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private record Candidate(String text, int overlap, int rank, int position) {
+    }
+}
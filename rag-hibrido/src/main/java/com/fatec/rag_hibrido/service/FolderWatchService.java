@@ -0,0 +1,382 @@
+package com.fatec.rag_hibrido.service;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentParser;
+import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ingestão contínua das pastas configuradas em rag.watch.roots.
+ * Uma thread recebe os eventos do WatchService e só marca os arquivos como
+ * pendentes; a thread de sincronização reindexa cada arquivo depois que ele
+ * fica 'debounce' sem eventos, de modo que uma rajada de gravações no mesmo
+ * arquivo vira uma única reindexação. Como o WatchService pode perder eventos
+ * (OVERFLOW, pastas criadas antes do registro, compartilhamentos de rede), uma
+ * varredura periódica compara mtime e tamanho de cada arquivo com o que foi
+ * indexado e corrige as diferenças.
+ * Só os arquivos afetados são reindexados: os segmentos antigos do arquivo
+ * saem do BM25 e do store de vetores e entram os novos.
+ */
+@Service
+public class FolderWatchService {
+
+    private final HybridRAGSystem ragSystem;
+    private final List<Path> roots;
+    private final String collection;
+    private final long debounceNanos;
+    private final long scanIntervalMs;
+
+    // Escrito só pela thread de sincronização
+    private final Map<Path, FileState> indexed = new ConcurrentHashMap<>();
+    // Arquivo -> instante (nanoTime) do último evento
+    private final Map<Path, Long> pending = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+
+    private final AtomicLong filesIndexed = new AtomicLong();
+    private final AtomicLong filesRemoved = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong lagCount = new AtomicLong();
+    private final AtomicLong lagTotalMs = new AtomicLong();
+    private final AtomicLong lagMaxMs = new AtomicLong();
+    private final AtomicLong lagLastMs = new AtomicLong();
+
+    private WatchService watchService;
+    private ScheduledExecutorService scheduler;
+    private Thread watcher;
+    private long startedAtMillis;
+
+    /**
+     * @param roots          pastas monitoradas, separadas por vírgula (vazio =
+     *                       desligado)
+     * @param collection     coleção que recebe os arquivos
+     * @param debounceMs     tempo sem eventos antes de reindexar um arquivo
+     * @param scanIntervalMs intervalo da varredura de reconciliação
+     */
+    public FolderWatchService(HybridRAGSystem ragSystem,
+            @Value("${rag.watch.roots:}") String roots,
+            @Value("${rag.watch.collection:default}") String collection,
+            @Value("${rag.watch.debounce-ms:1000}") long debounceMs,
+            @Value("${rag.watch.scan-interval-ms:60000}") long scanIntervalMs) {
+        this.ragSystem = ragSystem;
+        this.roots = Arrays.stream(roots.split(","))
+                .map(String::trim)
+                .filter(root -> !root.isEmpty())
+                .map(root -> Paths.get(root).toAbsolutePath().normalize())
+                .collect(Collectors.toList());
+        this.collection = collection;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMs);
+        this.scanIntervalMs = scanIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (roots.isEmpty()) {
+            return;
+        }
+        startedAtMillis = System.currentTimeMillis();
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                registerTree(root);
+            } else {
+                System.err.println("Pasta monitorada inexistente (será verificada a cada varredura): " + root);
+            }
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "folder-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        // A primeira varredura indexa o que já está nas pastas
+        scheduler.scheduleWithFixedDelay(guarded("varredura", this::reconcile), 0, scanIntervalMs,
+                TimeUnit.MILLISECONDS);
+        long drainInterval = Math.max(50, TimeUnit.NANOSECONDS.toMillis(debounceNanos) / 2);
+        scheduler.scheduleWithFixedDelay(guarded("fila de pendentes", this::drainPending), drainInterval,
+                drainInterval, TimeUnit.MILLISECONDS);
+
+        watcher = new Thread(this::watchLoop, "folder-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+        System.out.println("Monitorando " + roots + " -> coleção '" + collection + "'");
+    }
+
+    /**
+     * Tarefa agendada que não propaga exceções: no scheduleWithFixedDelay, uma
+     * exceção cancela todas as execuções seguintes sem aviso.
+     */
+    private static Runnable guarded(String name, Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Erro na " + name + " das pastas monitoradas: " + e);
+            }
+        };
+    }
+
+    private void watchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                try {
+                    handleEvents(key);
+                } catch (ClosedWatchServiceException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    // O que se perdeu neste lote a próxima varredura corrige
+                    System.err.println("Erro ao tratar eventos das pastas monitoradas: " + e);
+                } finally {
+                    if (!key.reset()) {
+                        watchedDirs.remove(key);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Encerrando
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        Path dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || dir == null) {
+                // Eventos perdidos: a varredura completa resolve
+                scheduler.execute(guarded("varredura", this::reconcile));
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                // Arquivos gravados antes do registro não geram evento
+                registerTree(path);
+                markTree(path);
+            } else {
+                pending.put(path, System.nanoTime());
+            }
+        }
+    }
+
+    private void registerTree(Path root) {
+        try (Stream<Path> dirs = Files.walk(root)) {
+            dirs.filter(Files::isDirectory).forEach(dir -> {
+                if (watchedDirs.containsValue(dir)) {
+                    return;
+                }
+                try {
+                    watchedDirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                } catch (IOException e) {
+                    System.err.println("Erro ao monitorar " + dir + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            // Erros no meio da travessia (pasta removida, sem permissão) chegam como UncheckedIOException
+            System.err.println("Erro ao percorrer " + root + ": " + e.getMessage());
+        }
+    }
+
+    private void markTree(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.filter(Files::isRegularFile).forEach(file -> pending.put(file, System.nanoTime()));
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Erro ao percorrer " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reindexa os arquivos que ficaram 'debounce' sem novos eventos.
+     */
+    private void drainPending() {
+        long now = System.nanoTime();
+        for (Map.Entry<Path, Long> entry : new ArrayList<>(pending.entrySet())) {
+            // Só remove se não chegou evento novo nesse meio tempo
+            if (now - entry.getValue() >= debounceNanos && pending.remove(entry.getKey(), entry.getValue())) {
+                sync(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Compara o estado das pastas com o que foi indexado: arquivos novos ou com
+     * mtime/tamanho diferentes entram na fila, arquivos que sumiram saem do
+     * índice. A remoção só vale para raízes percorridas por inteiro: uma raiz
+     * indisponível (compartilhamento caído, montagem sendo refeita) ou com
+     * erro na travessia mantém o que já foi indexado.
+     */
+    private void reconcile() {
+        scans.incrementAndGet();
+        Set<Path> seen = new HashSet<>();
+        Set<Path> scannedRoots = new HashSet<>();
+        for (Path root : roots) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            // Pastas criadas enquanto o WatchService perdia eventos
+            registerTree(root);
+            try (Stream<Path> files = Files.walk(root)) {
+                files.filter(Files::isRegularFile)
+                        .filter(file -> DocumentParsers.forFile(file) != null)
+                        .forEach(file -> {
+                            seen.add(file);
+                            FileState state = FileState.of(file);
+                            if (state != null && !state.equals(indexed.get(file))) {
+                                pending.putIfAbsent(file, System.nanoTime() - debounceNanos);
+                            }
+                        });
+                scannedRoots.add(root);
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Erro na varredura de " + root + ": " + e.getMessage());
+            }
+        }
+        for (Path file : new ArrayList<>(indexed.keySet())) {
+            if (!seen.contains(file) && scannedRoots.contains(rootOf(file))) {
+                sync(file);
+            }
+        }
+        drainPending();
+    }
+
+    private void sync(Path path) {
+        try {
+            if (Files.isDirectory(path)) {
+                return;
+            }
+            if (!Files.exists(path)) {
+                Path root = rootOf(path);
+                if (root == null || !Files.isDirectory(root)) {
+                    // A raiz sumiu inteira: indisponível, não apagada arquivo a arquivo
+                    return;
+                }
+                // Arquivo removido, ou pasta removida com tudo dentro
+                for (Path file : new ArrayList<>(indexed.keySet())) {
+                    if (file.startsWith(path)) {
+                        ragSystem.removeSource(collection, file.toString());
+                        indexed.remove(file);
+                        filesRemoved.incrementAndGet();
+                    }
+                }
+                return;
+            }
+            DocumentParser parser = DocumentParsers.forFile(path);
+            FileState state = FileState.of(path);
+            if (parser == null || state == null || state.equals(indexed.get(path))) {
+                return;
+            }
+
+            Document document = FileSystemDocumentLoader.loadDocument(path, parser);
+            ragSystem.reindexSource(collection, path.toString(), List.of(document));
+            indexed.put(path, state);
+            filesIndexed.incrementAndGet();
+            recordLag(state.modifiedMillis());
+        } catch (Exception e) {
+            // Sem atualizar 'indexed': a próxima varredura tenta de novo
+            failures.incrementAndGet();
+            System.err.println("Erro ao sincronizar " + path + ": " + e.getMessage());
+        }
+    }
+
+    private Path rootOf(Path path) {
+        for (Path root : roots) {
+            if (path.startsWith(root)) {
+                return root;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Atraso entre a gravação do arquivo (mtime) e o momento em que ele ficou
+     * pesquisável. Arquivos anteriores à subida do serviço não contam.
+     */
+    private void recordLag(long modifiedMillis) {
+        if (modifiedMillis < startedAtMillis) {
+            return;
+        }
+        long lag = Math.max(0, System.currentTimeMillis() - modifiedMillis);
+        lagLastMs.set(lag);
+        lagTotalMs.addAndGet(lag);
+        lagCount.incrementAndGet();
+        lagMaxMs.accumulateAndGet(lag, Math::max);
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("watch.enabled", !roots.isEmpty());
+        metrics.put("watch.tracked_files", indexed.size());
+        metrics.put("watch.pending_files", pending.size());
+        metrics.put("watch.files_indexed", filesIndexed.get());
+        metrics.put("watch.files_removed", filesRemoved.get());
+        metrics.put("watch.failures", failures.get());
+        metrics.put("watch.scans", scans.get());
+        long count = lagCount.get();
+        metrics.put("watch.lag.last_ms", lagLastMs.get());
+        metrics.put("watch.lag.avg_ms", count == 0 ? 0.0 : (double) lagTotalMs.get() / count);
+        metrics.put("watch.lag.max_ms", lagMaxMs.get());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Ignorar erros no fechamento
+            }
+        }
+    }
+
+    private record FileState(long modifiedMillis, long size) {
+
+        static FileState of(Path file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileState(attributes.lastModifiedTime().toMillis(), attributes.size());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+}
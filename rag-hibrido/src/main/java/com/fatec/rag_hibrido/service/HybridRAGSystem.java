@@ -1,8 +1,6 @@
 package com.fatec.rag_hibrido.service;
 
 import dev.langchain4j.data.document.Document;
-import dev.langchain4j.data.document.DocumentSplitter;
-import dev.langchain4j.data.document.splitter.DocumentByParagraphSplitter;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
@@ -10,46 +8,112 @@ import dev.langchain4j.model.embedding.bge.small.en.v15.BgeSmallEnV15EmbeddingMo
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 
-import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
-import dev.langchain4j.store.embedding.EmbeddingSearchResult;
-import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.model.ollama.OllamaChatModel;
-import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import dev.langchain4j.model.ollama.OllamaEmbeddingModel;
 import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class HybridRAGSystem {
+    public static final String DEFAULT_COLLECTION = "default";
+
     private final EmbeddingModel embeddingModel;
-    private final EmbeddingStore<TextSegment> embeddingStore;
-    private final BM25Retriever bm25Retriever;
-    private final DocumentSplitter splitter;
+    private final Map<String, RagCollection> collections = new ConcurrentHashMap<>();
+    private final CollectionSettings defaultSettings;
+    private final Path spillRoot;
+    private final MemoryBudget memoryBudget;
     private final ChatLanguageModel chatModel;
+    private final ResilientChatModel llm;
+    private final RetrievalCache retrievalCache;
 
     public HybridRAGSystem() {
         this("demo", "llama3");
     }
 
+    public HybridRAGSystem(String openAiApiKey, String ollamaModelName) {
+        this(openAiApiKey, ollamaModelName, "http://localhost:11434", "", "",
+                30000, 8, 100, "", ollamaModelName, 2000,
+                0, Paths.get(System.getProperty("java.io.tmpdir"), "rag-hibrido").toString(),
+                500, 50, 2, 16, 1000);
+    }
+
     /**
      * BGE (BAII General Embedding): Criado pela BAII (Beijing Academy of Artificial
      * Intelligence).
      * Small: Indica que é a versão "leve" ou compacta do modelo.
      * En: Significa English. O modelo foi otimizado para textos em inglês
      * 
+     * Quando 'rag.embedding.ollama-base-url' é informado, os embeddings passam a
+     * ser calculados por um servidor compatível com a API do Ollama em vez do BGE
+     * local (usado, por exemplo, pelos servidores simulados do teste de carga).
+     * 
      * @param openAiApiKey
+     * @param ollamaModelName
+     * @param ollamaBaseUrl      endereço do servidor Ollama usado para o chat
+     * @param embeddingBaseUrl   endereço opcional de um servidor Ollama de
+     *                           embeddings
+     * @param embeddingModelName modelo de embeddings no servidor Ollama
+     * @param llmTimeoutMs       prazo de cada chamada ao LLM antes do fallback
+     *                           extrativo
+     * @param llmMaxConcurrent   chamadas simultâneas permitidas ao LLM
+     * @param llmBulkheadWaitMs  espera máxima por uma vaga no bulkhead
+     * @param hedgeBaseUrl       servidor Ollama secundário para requisições
+     *                           redundantes (vazio = desabilitado)
+     * @param hedgeModelName     modelo no servidor secundário
+     * @param hedgeDelayMs       latência do principal que dispara o hedge
+     * @param memoryBudgetMb     orçamento de heap para vetores e segmentos,
+     *                           dividido entre todas as coleções; acima dele as
+     *                           entradas menos acessadas vão para o disco (0 =
+     *                           sem limite)
+     * @param spillDir           diretório dos arquivos de spill e do índice BM25
+     *                           em disco
+     * @param maxSegmentSize     tamanho padrão dos segmentos das coleções
+     * @param maxOverlap         sobreposição padrão entre segmentos
+     * @param ingestConcurrency  ingestões simultâneas padrão por coleção
+     * @param queryConcurrency   consultas simultâneas padrão por coleção
+     * @param cacheMaxEntries    resultados de busca mantidos em cache (0 =
+     *                           desligado)
      */
+    @Autowired
     public HybridRAGSystem(@Value("${langchain4j.open-ai.api-key:demo}") String openAiApiKey,
-            @Value("${ollama.model.name:llama3}") String ollamaModelName) {
+            @Value("${ollama.model.name:llama3}") String ollamaModelName,
+            @Value("${ollama.base-url:http://localhost:11434}") String ollamaBaseUrl,
+            @Value("${rag.embedding.ollama-base-url:}") String embeddingBaseUrl,
+            @Value("${rag.embedding.ollama-model:}") String embeddingModelName,
+            @Value("${rag.llm.timeout-ms:30000}") long llmTimeoutMs,
+            @Value("${rag.llm.max-concurrent:8}") int llmMaxConcurrent,
+            @Value("${rag.llm.bulkhead-wait-ms:100}") long llmBulkheadWaitMs,
+            @Value("${rag.llm.hedge.base-url:}") String hedgeBaseUrl,
+            @Value("${rag.llm.hedge.model-name:${ollama.model.name:llama3}}") String hedgeModelName,
+            @Value("${rag.llm.hedge.delay-ms:2000}") long hedgeDelayMs,
+            @Value("${rag.storage.memory-budget-mb:0}") long memoryBudgetMb,
+            @Value("${rag.storage.spill-dir:${java.io.tmpdir}/rag-hibrido}") String spillDir,
+            @Value("${rag.collection.max-segment-size:500}") int maxSegmentSize,
+            @Value("${rag.collection.max-overlap:50}") int maxOverlap,
+            @Value("${rag.collection.ingest-concurrency:2}") int ingestConcurrency,
+            @Value("${rag.collection.query-concurrency:16}") int queryConcurrency,
+            @Value("${rag.cache.max-entries:1000}") int cacheMaxEntries) {
         if ("demo".equals(openAiApiKey) || openAiApiKey == null || openAiApiKey.isBlank()) {
-            this.embeddingModel = new BgeSmallEnV15EmbeddingModel();
+            this.embeddingModel = embeddingBaseUrl == null || embeddingBaseUrl.isBlank()
+                    ? new BgeSmallEnV15EmbeddingModel()
+                    : OllamaEmbeddingModel.builder()
+                            .baseUrl(embeddingBaseUrl)
+                            .modelName(embeddingModelName)
+                            .build();
             this.chatModel = OllamaChatModel.builder()
-                    .baseUrl("http://localhost:11434")
+                    .baseUrl(ollamaBaseUrl)
                     .modelName(ollamaModelName)
                     .temperature(0.0)
+                    .timeout(Duration.ofMillis(llmTimeoutMs))
                     .build();
         } else {
             this.embeddingModel = OpenAiEmbeddingModel.builder()
@@ -60,50 +124,149 @@ public class HybridRAGSystem {
                     .apiKey(openAiApiKey)
                     .modelName("gpt-4o-mini")
                     .temperature(0.0)
+                    .timeout(Duration.ofMillis(llmTimeoutMs))
                     .build();
         }
-        this.embeddingStore = new InMemoryEmbeddingStore<>();
-        this.bm25Retriever = new BM25Retriever();
-        this.splitter = new DocumentByParagraphSplitter(500, 50);
+        ChatLanguageModel hedgeModel = hedgeBaseUrl == null || hedgeBaseUrl.isBlank() ? null
+                : OllamaChatModel.builder()
+                        .baseUrl(hedgeBaseUrl)
+                        .modelName(hedgeModelName)
+                        .temperature(0.0)
+                        .timeout(Duration.ofMillis(llmTimeoutMs))
+                        .build();
+        this.llm = new ResilientChatModel(chatModel, hedgeModel, Duration.ofMillis(llmTimeoutMs),
+                llmMaxConcurrent, Duration.ofMillis(llmBulkheadWaitMs), Duration.ofMillis(hedgeDelayMs));
+        this.spillRoot = Paths.get(spillDir);
+        this.memoryBudget = new MemoryBudget(memoryBudgetMb * 1024 * 1024);
+        this.retrievalCache = new RetrievalCache(cacheMaxEntries);
+        this.defaultSettings = new CollectionSettings(maxSegmentSize, maxOverlap, ingestConcurrency,
+                queryConcurrency, 0);
+        createCollection(DEFAULT_COLLECTION, defaultSettings);
 
         System.out.println("SISTEMA RAG INICIALIZADO:");
         System.out.println("- Embedding Model: "
-                + (embeddingModel instanceof BgeSmallEnV15EmbeddingModel ? "BgeSmallEnV15 (Local)" : "OpenAI"));
+                + (embeddingModel instanceof BgeSmallEnV15EmbeddingModel ? "BgeSmallEnV15 (Local)"
+                        : embeddingModel instanceof OllamaEmbeddingModel ? "Ollama (" + embeddingBaseUrl + ")"
+                                : "OpenAI"));
         System.out.println("- Chat Model: "
                 + (chatModel instanceof OllamaChatModel ? "Configurado (Ollama: " + ollamaModelName + ")"
                         : "Configurado (OpenAI)"));
+        System.out.println("- LLM: prazo " + llmTimeoutMs + "ms, até " + llmMaxConcurrent + " chamadas simultâneas"
+                + (hedgeModel != null ? ", hedge em " + hedgeBaseUrl + " após " + hedgeDelayMs + "ms" : ""));
+        System.out.println("- Armazenamento: "
+                + (memoryBudgetMb > 0 ? "orçamento de " + memoryBudgetMb + "MB para todas as coleções, spill em "
+                        + spillRoot
+                        : "somente memória"));
     }
 
-    public void loadDocuments(List<Document> documents) {
-        for (Document doc : documents) {
-            // Dividir documento em segmentos
-            List<TextSegment> segments = splitter.split(doc);
-
-            for (TextSegment segment : segments) {
-                // Adicionar ao BM25
-                bm25Retriever.addDocument(segment);
-
-                // Adicionar ao embedding store
-                Embedding embedding = embeddingModel.embed(segment).content();
-                embeddingStore.add(embedding, segment);
-            }
+    public CollectionSettings getDefaultSettings() {
+        return defaultSettings;
+    }
+
+    /**
+     * Cria uma coleção vazia com índices próprios. O nome vira parte do caminho
+     * dos arquivos de spill, por isso só aceita letras, dígitos, '-' e '_'.
+     * O store da coleção retira memória do orçamento do sistema; o limite
+     * próprio da coleção só pode restringir esse orçamento, nunca ampliá-lo.
+     */
+    public RagCollection createCollection(String name, CollectionSettings settings) {
+        if (name == null || !name.matches("[A-Za-z0-9_-]{1,64}")) {
+            throw new IllegalArgumentException("Nome de coleção inválido: " + name);
+        }
+        if (memoryBudget.isLimited() && settings.memoryBudgetMb() > memoryBudget.limitBytes() / (1024 * 1024)) {
+            throw new IllegalArgumentException("Orçamento de memória da coleção (" + settings.memoryBudgetMb()
+                    + "MB) maior que o do sistema (" + memoryBudget.limitBytes() / (1024 * 1024) + "MB)");
+        }
+        RagCollection[] created = new RagCollection[1];
+        collections.computeIfAbsent(name,
+                key -> created[0] = new RagCollection(key, settings, spillRoot, memoryBudget));
+        if (created[0] == null) {
+            throw new IllegalArgumentException("Coleção já existe: " + name);
+        }
+        System.out.println("Coleção criada: " + name + " " + settings);
+        return created[0];
+    }
+
+    public void dropCollection(String name) {
+        if (DEFAULT_COLLECTION.equals(name)) {
+            throw new IllegalArgumentException("A coleção padrão não pode ser removida");
         }
-        System.out.println("Documentos carregados: " + documents.size());
+        RagCollection collection = collections.remove(name);
+        if (collection == null) {
+            throw new NoSuchElementException("Coleção inexistente: " + name);
+        }
+        collection.close();
+        retrievalCache.invalidate(name);
+        System.out.println("Coleção removida: " + name);
+    }
+
+    public List<RagCollection> listCollections() {
+        List<RagCollection> result = new ArrayList<>(collections.values());
+        result.sort(Comparator.comparing(RagCollection::getName));
+        return result;
+    }
+
+    /**
+     * Resolve o nome da coleção; nulo ou vazio significa a coleção padrão.
+     */
+    public RagCollection getCollection(String name) {
+        String key = name == null || name.isBlank() ? DEFAULT_COLLECTION : name;
+        RagCollection collection = collections.get(key);
+        if (collection == null) {
+            throw new NoSuchElementException("Coleção inexistente: " + key);
+        }
+        return collection;
+    }
+
+    public void loadDocuments(List<Document> documents) {
+        loadDocuments(DEFAULT_COLLECTION, documents);
+    }
+
+    public void loadDocuments(String collection, List<Document> documents) {
+        RagCollection target = getCollection(collection);
+        target.loadDocuments(documents, embeddingModel);
+        System.out.println("Documentos carregados em '" + target.getName() + "': " + documents.size());
+    }
+
+    /**
+     * Reindexa um único arquivo-fonte (identificado por 'source'), trocando seus
+     * segmentos antigos pelos novos nos dois índices.
+     */
+    public void reindexSource(String collection, String source, List<Document> documents) {
+        getCollection(collection).replaceSource(source, documents, embeddingModel);
+    }
+
+    public void removeSource(String collection, String source) {
+        getCollection(collection).removeSource(source);
     }
 
     public String answer(String query) {
+        return answerWithSource(query).text();
+    }
+
+    public RagAnswer answerWithSource(String query) {
+        return answerWithSource(DEFAULT_COLLECTION, query);
+    }
+
+    /**
+     * Gera a resposta informando o caminho usado. Se o LLM estourar o prazo,
+     * estiver saturado ou falhar, a resposta é extraída dos trechos recuperados.
+     */
+    public RagAnswer answerWithSource(String collection, String query) {
         // Obter contextos com threshold de relevância
-        List<TextSegment> contexts = retrieveHybrid(query, 5, 0.5, 0.5);
+        return generateAnswer(query, retrieveHybrid(collection, query, 5, 0.5, 0.5));
+    }
 
+    /**
+     * Gera a resposta para contextos já recuperados (localmente ou pelo
+     * coordenador do cluster).
+     */
+    public RagAnswer generateAnswer(String query, List<TextSegment> contexts) {
         // Se não houver contextos relevantes, responder que não sabe
         if (contexts.isEmpty()) {
-            return "Desculpe, mas não encontrei informações nos documentos carregados para responder a essa pergunta com precisão.";
-        }
-
-        if (chatModel == null) {
-            return "Modelo de Chat (LLM) não configurado. Para habilitar respostas completas, configure 'langchain4j.open-ai.api-key' no application.properties.\n\n"
-                    +
-                    "No entanto, encontrei " + contexts.size() + " trechos que podem ser relevantes nos documentos.";
+            return new RagAnswer(
+                    "Desculpe, mas não encontrei informações nos documentos carregados para responder a essa pergunta com precisão.",
+                    AnswerSource.NO_CONTEXT);
         }
 
         StringBuilder contextBuilder = new StringBuilder();
@@ -120,39 +283,85 @@ public class HybridRAGSystem {
                 contextBuilder.toString(),
                 query);
 
-        return chatModel.generate(prompt);
+        return llm.generate(prompt)
+                .orElseGet(() -> new RagAnswer(ExtractiveAnswerBuilder.build(query, contexts, 3),
+                        AnswerSource.EXTRACTIVE_FALLBACK));
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(llm.metrics());
+        metrics.putAll(retrievalCache.metrics());
+        metrics.putAll(memoryBudget.metrics());
+        for (RagCollection collection : listCollections()) {
+            collection.metrics().forEach((key, value) -> metrics.put(
+                    "collections." + collection.getName() + "." + key, value));
+        }
+        return metrics;
     }
 
     @PreDestroy
     public void close() {
-        if (bm25Retriever != null) {
-            bm25Retriever.close();
-        }
+        collections.values().forEach(RagCollection::close);
+        collections.clear();
+        llm.close();
     }
 
     public List<TextSegment> retrieveHybrid(String query, int maxResults,
             double bm25Weight, double embeddingWeight) {
-        // Recuperar usando BM25
-        List<TextSegment> bm25Results = bm25Retriever.retrieve(query, maxResults * 2);
-
-        // Recuperar usando embeddings com threshold de similaridade
-        Embedding queryEmbedding = embeddingModel.embed(query).content();
-        EmbeddingSearchRequest searchRequest = EmbeddingSearchRequest.builder()
-                .queryEmbedding(queryEmbedding)
-                .maxResults(maxResults * 2)
-                .minScore(0.65) // Threshold para evitar resultados totalmente irrelevantes
-                .build();
-
-        EmbeddingSearchResult<TextSegment> searchResult = embeddingStore.search(searchRequest);
-        List<EmbeddingMatch<TextSegment>> embeddingResults = searchResult.matches();
-
-        // Se nenhum método retornou nada decente, retorna lista vazia
-        if (bm25Results.isEmpty() && embeddingResults.isEmpty()) {
-            return Collections.emptyList();
-        }
+        return retrieveHybrid(DEFAULT_COLLECTION, query, maxResults, bm25Weight, embeddingWeight);
+    }
+
+    public List<TextSegment> retrieveHybrid(String collection, String query, int maxResults,
+            double bm25Weight, double embeddingWeight) {
+        RagCollection target = getCollection(collection);
+        // Consultas repetidas (dashboards, reenvios do chat) saem do cache enquanto
+        // a coleção não recebe nova ingestão
+        return retrievalCache.get(target.getName(), query, maxResults, bm25Weight, embeddingWeight,
+                target.getGeneration(), () -> {
+                    RetrievalCandidates candidates = retrieveCandidates(target.getName(), query, maxResults * 2);
+
+                    // Se nenhum método retornou nada decente, retorna lista vazia
+                    if (candidates.isEmpty()) {
+                        return Collections.emptyList();
+                    }
+
+                    // Combinar resultados usando RRF (Reciprocal Rank Fusion)
+                    return reciprocalRankFusion(candidates.bm25(), candidates.embeddings(), maxResults);
+                });
+    }
+
+    /**
+     * Listas de cada método, ainda sem fusão. Usado também pelos nós do cluster
+     * para devolver candidatos ao coordenador.
+     */
+    public RetrievalCandidates retrieveCandidates(String collection, String query, int maxCandidates) {
+        return retrieveCandidates(collection, query, null, maxCandidates);
+    }
+
+    /**
+     * @param queryEmbedding embedding da consulta já calculado (pelo
+     *                       coordenador, uma vez para todos os nós), ou null
+     *                       para calcular aqui
+     */
+    public RetrievalCandidates retrieveCandidates(String collection, String query, Embedding queryEmbedding,
+            int maxCandidates) {
+        RagCollection target = getCollection(collection);
+        return target.query(() -> {
+            // Recuperar usando BM25
+            List<TextSegment> bm25Results = target.retrieveBm25(query, maxCandidates);
+
+            // Recuperar usando embeddings com threshold de similaridade
+            Embedding embedding = queryEmbedding != null ? queryEmbedding : embedQuery(query);
+            // Threshold para evitar resultados totalmente irrelevantes
+            List<EmbeddingMatch<TextSegment>> embeddingResults = target.retrieveEmbeddings(embedding,
+                    maxCandidates, 0.65);
+
+            return new RetrievalCandidates(bm25Results, embeddingResults);
+        });
+    }
 
-        // Combinar resultados usando RRF (Reciprocal Rank Fusion)
-        return reciprocalRankFusion(bm25Results, embeddingResults, maxResults);
+    public Embedding embedQuery(String query) {
+        return embeddingModel.embed(query).content();
     }
 
     /**
@@ -169,7 +378,7 @@ public class HybridRAGSystem {
      * @param maxResults
      * @return
      */
-    private List<TextSegment> reciprocalRankFusion(
+    static List<TextSegment> reciprocalRankFusion(
             List<TextSegment> bm25Results,
             List<EmbeddingMatch<TextSegment>> embeddingResults,
             int maxResults) {
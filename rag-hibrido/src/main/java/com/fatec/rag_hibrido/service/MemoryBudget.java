@@ -0,0 +1,68 @@
+package com.fatec.rag_hibrido.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Orçamento de heap único do HybridRAGSystem (rag.storage.memory-budget-mb),
+ * do qual os stores de todas as coleções retiram memória. Cada store soma aqui
+ * os bytes das suas entradas quentes; quando o total passa do limite, as
+ * entradas menos acessadas de todos os stores vão para o disco (ver
+ * TieredVectorStore), de modo que criar coleções não aumenta o heap usado.
+ */
+public class MemoryBudget {
+
+    private final long limitBytes;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final List<TieredVectorStore> stores = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param limitBytes limite de bytes quentes somando todos os stores; zero
+     *                   ou negativo = sem limite
+     */
+    public MemoryBudget(long limitBytes) {
+        this.limitBytes = limitBytes > 0 ? limitBytes : Long.MAX_VALUE;
+    }
+
+    public boolean isLimited() {
+        return limitBytes != Long.MAX_VALUE;
+    }
+
+    public long limitBytes() {
+        return limitBytes;
+    }
+
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    void add(long bytes) {
+        usedBytes.addAndGet(bytes);
+    }
+
+    boolean exceeded() {
+        return usedBytes.get() > limitBytes;
+    }
+
+    List<TieredVectorStore> stores() {
+        return stores;
+    }
+
+    void register(TieredVectorStore store) {
+        stores.add(store);
+    }
+
+    void unregister(TieredVectorStore store) {
+        stores.remove(store);
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("storage.budget_bytes", isLimited() ? limitBytes : -1);
+        metrics.put("storage.budget_used_bytes", usedBytes.get());
+        return metrics;
+    }
+}
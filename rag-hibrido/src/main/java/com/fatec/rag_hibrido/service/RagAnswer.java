@@ -0,0 +1,7 @@
+package com.fatec.rag_hibrido.service;
+
+/**
+ * Resposta de uma consulta e o caminho que a produziu.
+ */
+public record RagAnswer(String text, AnswerSource source) {
+}
@@ -0,0 +1,247 @@
+package com.fatec.rag_hibrido.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.splitter.DocumentByParagraphSplitter;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+
+/**
+ * Coleção isolada de documentos: índice BM25, store de vetores e splitter
+ * próprios, de modo que o ranking de uma equipe não se mistura ao de outra e
+ * consultas em coleções pequenas não percorrem as grandes.
+ * As cotas limitam quantas threads a coleção ocupa ao mesmo tempo; quando
+ * esgotadas, a requisição espera um pouco e depois é recusada, para que a
+ * ingestão em massa de um tenant não tome o servidor inteiro. A espera é
+ * curta também na ingestão: quem espera ocupa uma thread do Tomcat, que é
+ * compartilhado entre as coleções, então o cliente recebe 429 e tenta de novo.
+ */
+public class RagCollection {
+    private static final long INGEST_WAIT_MS = 1_000;
+    private static final long QUERY_WAIT_MS = 1_000;
+    // Contador global: uma coleção recriada com o mesmo nome nunca repete geração
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    private final String name;
+    private final CollectionSettings settings;
+    private final Path storageDir;
+    private final BM25Retriever bm25Retriever;
+    private final TieredVectorStore embeddingStore;
+    private final DocumentSplitter splitter;
+    private final Semaphore ingestPermits;
+    private final Semaphore queryPermits;
+    // Ids dos segmentos de cada arquivo-fonte, para reindexar só o que mudou
+    private final Map<String, List<String>> idsBySource = new ConcurrentHashMap<>();
+    private volatile long generation = GENERATIONS.incrementAndGet();
+
+    public RagCollection(String name, CollectionSettings settings, Path spillRoot) {
+        this(name, settings, spillRoot, new MemoryBudget(0));
+    }
+
+    /**
+     * @param spillRoot    diretório onde a coleção cria seus arquivos em disco
+     *                     quando há orçamento de memória
+     * @param sharedBudget orçamento de heap do sistema, dividido entre as
+     *                     coleções
+     */
+    public RagCollection(String name, CollectionSettings settings, Path spillRoot, MemoryBudget sharedBudget) {
+        this.name = name;
+        this.settings = settings;
+        if (settings.memoryBudgetMb() > 0 || sharedBudget.isLimited()) {
+            // Com orçamento, o índice BM25 também sai do heap
+            try {
+                this.storageDir = Files.createTempDirectory(Files.createDirectories(spillRoot), name + "-");
+            } catch (IOException e) {
+                throw new RuntimeException("Erro ao criar diretório de spill em " + spillRoot, e);
+            }
+            this.embeddingStore = new TieredVectorStore(settings.memoryBudgetMb() * 1024 * 1024, storageDir,
+                    sharedBudget);
+            this.bm25Retriever = new BM25Retriever(storageDir.resolve("bm25"));
+        } else {
+            this.storageDir = null;
+            this.embeddingStore = new TieredVectorStore(0, null);
+            this.bm25Retriever = new BM25Retriever();
+        }
+        this.splitter = new DocumentByParagraphSplitter(settings.maxSegmentSize(), settings.maxOverlap());
+        this.ingestPermits = new Semaphore(settings.ingestConcurrency());
+        this.queryPermits = new Semaphore(settings.queryConcurrency());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CollectionSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Geração do índice: avança depois de cada ingestão, reindexação ou remoção,
+     * e identifica resultados de busca calculados sobre um índice antigo.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int segmentCount() {
+        return embeddingStore.size();
+    }
+
+    public void loadDocuments(List<Document> documents, EmbeddingModel embeddingModel) {
+        withPermit(ingestPermits, INGEST_WAIT_MS, "ingestão", () -> {
+            try {
+                for (Document doc : documents) {
+                    index(doc, embeddingModel);
+                }
+            } finally {
+                generation = GENERATIONS.incrementAndGet();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Substitui nos dois índices os segmentos de um arquivo-fonte pelos dos
+     * documentos informados (lista vazia só remove).
+     */
+    public void replaceSource(String source, List<Document> documents, EmbeddingModel embeddingModel) {
+        withPermit(ingestPermits, INGEST_WAIT_MS, "ingestão", () -> {
+            // Calcular os novos segmentos antes de remover os antigos, para que
+            // uma falha no modelo de embeddings não deixe o arquivo fora do índice
+            List<String> ids = new ArrayList<>();
+            List<TextSegment> segments = new ArrayList<>();
+            List<Embedding> embeddings = new ArrayList<>();
+            for (Document doc : documents) {
+                for (TextSegment segment : splitter.split(doc)) {
+                    segments.add(segment);
+                    embeddings.add(embeddingModel.embed(segment).content());
+                }
+            }
+
+            try {
+                removeIds(idsBySource.getOrDefault(source, List.of()));
+                for (int i = 0; i < segments.size(); i++) {
+                    String id = UUID.randomUUID().toString();
+                    bm25Retriever.addDocument(id, segments.get(i));
+                    embeddingStore.add(id, embeddings.get(i), segments.get(i));
+                    ids.add(id);
+                }
+            } finally {
+                generation = GENERATIONS.incrementAndGet();
+            }
+            if (ids.isEmpty()) {
+                idsBySource.remove(source);
+            } else {
+                idsBySource.put(source, ids);
+            }
+            return null;
+        });
+    }
+
+    public void removeSource(String source) {
+        replaceSource(source, List.of(), null);
+    }
+
+    private void index(Document doc, EmbeddingModel embeddingModel) {
+        // Dividir documento em segmentos
+        List<TextSegment> segments = splitter.split(doc);
+
+        for (TextSegment segment : segments) {
+            // Mesmo id nos dois índices
+            String id = UUID.randomUUID().toString();
+
+            // Adicionar ao BM25
+            bm25Retriever.addDocument(id, segment);
+
+            // Adicionar ao embedding store
+            Embedding embedding = embeddingModel.embed(segment).content();
+            embeddingStore.add(id, embedding, segment);
+        }
+    }
+
+    private void removeIds(List<String> ids) {
+        bm25Retriever.deleteDocuments(ids);
+        ids.forEach(embeddingStore::remove);
+    }
+
+    /**
+     * Executa uma consulta dentro da cota da coleção.
+     */
+    public <T> T query(Supplier<T> search) {
+        return withPermit(queryPermits, QUERY_WAIT_MS, "consulta", search);
+    }
+
+    public List<TextSegment> retrieveBm25(String query, int maxResults) {
+        return bm25Retriever.retrieve(query, maxResults);
+    }
+
+    public List<EmbeddingMatch<TextSegment>> retrieveEmbeddings(Embedding queryEmbedding, int maxResults,
+            double minScore) {
+        return embeddingStore.search(queryEmbedding, maxResults, minScore);
+    }
+
+    private <T> T withPermit(Semaphore permits, long waitMs, String operation, Supplier<T> action) {
+        try {
+            if (!permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                throw new CollectionQuotaExceededException(
+                        "Cota de " + operation + " esgotada na coleção '" + name + "'");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CollectionQuotaExceededException("Interrompido aguardando cota da coleção '" + name + "'");
+        }
+        try {
+            return action.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(embeddingStore.metrics());
+        metrics.put("generation", generation);
+        metrics.put("ingest_in_flight", settings.ingestConcurrency() - ingestPermits.availablePermits());
+        metrics.put("query_in_flight", settings.queryConcurrency() - queryPermits.availablePermits());
+        return metrics;
+    }
+
+    /**
+     * Espera as operações em andamento terminarem (até um limite) antes de
+     * liberar os índices.
+     */
+    public void close() {
+        try {
+            queryPermits.tryAcquire(settings.queryConcurrency(), QUERY_WAIT_MS * 5, TimeUnit.MILLISECONDS);
+            ingestPermits.tryAcquire(settings.ingestConcurrency(), QUERY_WAIT_MS * 5, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        bm25Retriever.close();
+        embeddingStore.close();
+        if (storageDir != null) {
+            try (Stream<Path> paths = Files.walk(storageDir)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                // Ignorar erros no fechamento
+            }
+        }
+    }
+}
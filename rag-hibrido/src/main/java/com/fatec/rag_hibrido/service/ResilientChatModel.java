@@ -0,0 +1,246 @@
+package com.fatec.rag_hibrido.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+
+/**
+ * Camada de resiliência em volta do modelo de chat:
+ * 1. Prazo por chamada: quem chama nunca espera mais que 'timeout'.
+ * 2. Bulkhead: no máximo 'maxConcurrent' chamadas simultâneas a cada backend;
+ * quando esgotado, a chamada é recusada após 'bulkheadWait' em vez de
+ * enfileirar threads de requisição até o serviço parar.
+ * 3. Requisição redundante (hedge): se o backend principal não respondeu em
+ * 'hedgeDelay' (ou falhou), a mesma pergunta vai para o backend secundário e
+ * vence quem responder primeiro. Se o bulkhead do principal está esgotado, a
+ * pergunta vai direto para o secundário.
+ * Quando nenhuma resposta chega dentro do prazo, generate devolve vazio e
+ * quem chama decide o fallback (resposta extrativa no HybridRAGSystem).
+ * A interrupção não aborta a leitura do socket HTTP do cliente do modelo, então
+ * uma chamada abandonada (hedge venceu ou prazo estourou) continua ocupando a
+ * vaga do bulkhead até o backend responder: o limite vale para as chamadas que
+ * realmente chegam ao backend, não só para as que alguém ainda espera. Por
+ * isso cada backend tem o seu bulkhead: um principal lento, cheio de chamadas
+ * abandonadas, não tira as vagas do secundário.
+ */
+public class ResilientChatModel {
+
+    private final Backend primary;
+    private final Backend hedge;
+    private final Duration timeout;
+    private final Duration bulkheadWait;
+    private final Duration hedgeDelay;
+    private final ExecutorService executor;
+
+    private final AtomicLong primaryServed = new AtomicLong();
+    private final AtomicLong hedgeServed = new AtomicLong();
+    private final AtomicLong hedgesLaunched = new AtomicLong();
+    private final AtomicLong primaryBypassed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * @param primary       modelo de chat principal
+     * @param hedge         backend secundário para requisições redundantes, ou
+     *                      null para desabilitar
+     * @param timeout       prazo total de cada chamada
+     * @param maxConcurrent limite de chamadas simultâneas por backend (bulkhead)
+     * @param bulkheadWait  quanto esperar por uma vaga no bulkhead
+     * @param hedgeDelay    latência a partir da qual o hedge é disparado
+     */
+    public ResilientChatModel(ChatLanguageModel primary, ChatLanguageModel hedge, Duration timeout,
+            int maxConcurrent, Duration bulkheadWait, Duration hedgeDelay) {
+        this.primary = new Backend(primary, AnswerSource.LLM_PRIMARY, maxConcurrent);
+        this.hedge = hedge == null ? null : new Backend(hedge, AnswerSource.LLM_HEDGE, maxConcurrent);
+        this.timeout = timeout;
+        this.bulkheadWait = bulkheadWait;
+        this.hedgeDelay = hedgeDelay;
+        // Uma thread por vaga dos bulkheads: chamadas presas não criam threads novas
+        int threads = hedge == null ? maxConcurrent : 2 * maxConcurrent;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "llm-call");
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    public Optional<RagAnswer> generate(String prompt) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CompletableFuture<RagAnswer> first = submit(primary, prompt, bulkheadWait);
+        boolean canHedge = first != null && hedge != null;
+        if (first == null && hedge != null) {
+            // Principal saturado (lento ou com chamadas abandonadas): só o secundário
+            first = submit(hedge, prompt, bulkheadWait);
+            if (first != null) {
+                primaryBypassed.incrementAndGet();
+            }
+        }
+        if (first == null) {
+            rejected.incrementAndGet();
+            return Optional.empty();
+        }
+
+        CompletableFuture<RagAnswer> second = null;
+        try {
+            CompletableFuture<RagAnswer> result = first;
+            if (canHedge) {
+                try {
+                    return served(first.get(Math.min(hedgeDelay.toNanos(), remaining(deadline)),
+                            TimeUnit.NANOSECONDS));
+                } catch (TimeoutException | ExecutionException e) {
+                    // Principal lento ou com erro: o hedge não espera vaga no bulkhead
+                    // do secundário, se não houver vaga seguimos só com o principal
+                    if (remaining(deadline) > 0) {
+                        second = submit(hedge, prompt, Duration.ZERO);
+                    }
+                }
+                if (second != null) {
+                    hedgesLaunched.incrementAndGet();
+                    result = firstSuccessful(first, second);
+                }
+            }
+            return served(result.get(remaining(deadline), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            timeouts.incrementAndGet();
+        } catch (ExecutionException e) {
+            failures.incrementAndGet();
+            System.err.println("Erro ao chamar o modelo de chat: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            first.cancel(true);
+            if (second != null) {
+                second.cancel(true);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Agenda a chamada ao modelo se houver vaga no bulkhead; devolve null caso
+     * contrário. A vaga só é liberada quando a chamada ao backend de fato
+     * termina (ou quando a tarefa é cancelada antes de começar).
+     */
+    private CompletableFuture<RagAnswer> submit(Backend backend, String prompt, Duration wait) {
+        Semaphore bulkhead = backend.bulkhead;
+        try {
+            if (!bulkhead.tryAcquire(wait.toNanos(), TimeUnit.NANOSECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        CompletableFuture<RagAnswer> result = new CompletableFuture<>();
+        // Quem marcar primeiro libera a vaga: a chamada ao terminar, ou o
+        // cancelamento se a chamada nunca chegou a começar
+        AtomicBoolean claimed = new AtomicBoolean();
+        FutureTask<String> task = new FutureTask<>(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return backend.model.generate(prompt);
+            } finally {
+                bulkhead.release();
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (isCancelled() && claimed.compareAndSet(false, true)) {
+                    bulkhead.release();
+                }
+                try {
+                    result.complete(new RagAnswer(get(), backend.source));
+                } catch (ExecutionException e) {
+                    result.completeExceptionally(e.getCause());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        };
+        // Cancelar o resultado interrompe a thread que está presa na chamada HTTP
+        result.whenComplete((answer, error) -> task.cancel(true));
+        executor.execute(task);
+        return result;
+    }
+
+    private static CompletableFuture<RagAnswer> firstSuccessful(CompletableFuture<RagAnswer> a,
+            CompletableFuture<RagAnswer> b) {
+        CompletableFuture<RagAnswer> winner = new CompletableFuture<>();
+        a.thenAccept(winner::complete);
+        b.thenAccept(winner::complete);
+        // Só falha quando as duas tentativas falharam
+        CompletableFuture.allOf(a, b).whenComplete((ignored, error) -> {
+            if (a.isCompletedExceptionally() && b.isCompletedExceptionally()) {
+                winner.completeExceptionally(error);
+            }
+        });
+        return winner;
+    }
+
+    private Optional<RagAnswer> served(RagAnswer answer) {
+        (answer.source() == AnswerSource.LLM_HEDGE ? hedgeServed : primaryServed).incrementAndGet();
+        return Optional.of(answer);
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("llm.served.primary", primaryServed.get());
+        metrics.put("llm.served.hedge", hedgeServed.get());
+        metrics.put("llm.hedges_launched", hedgesLaunched.get());
+        metrics.put("llm.primary_bypassed", primaryBypassed.get());
+        metrics.put("llm.timeouts", timeouts.get());
+        metrics.put("llm.bulkhead_rejected", rejected.get());
+        metrics.put("llm.failures", failures.get());
+        metrics.put("llm.in_flight", primary.inFlight() + (hedge == null ? 0 : hedge.inFlight()));
+        metrics.put("llm.in_flight.primary", primary.inFlight());
+        metrics.put("llm.in_flight.hedge", hedge == null ? 0 : hedge.inFlight());
+        return metrics;
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static class Backend {
+        final ChatLanguageModel model;
+        final AnswerSource source;
+        final int maxConcurrent;
+        final Semaphore bulkhead;
+
+        Backend(ChatLanguageModel model, AnswerSource source, int maxConcurrent) {
+            this.model = model;
+            this.source = source;
+            this.maxConcurrent = maxConcurrent;
+            this.bulkhead = new Semaphore(maxConcurrent);
+        }
+
+        int inFlight() {
+            return maxConcurrent - bulkhead.availablePermits();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.fatec.rag_hibrido.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+/**
+ * Cache de resultados do retrieveHybrid por correspondência exata: a chave é a
+ * consulta normalizada (Unicode NFC, minúsculas e espaços colapsados, como o
+ * analisador do BM25 já faz) mais maxResults e os pesos de fusão.
+ * Cada entrada guarda a geração do índice da coleção no momento em que foi
+ * calculada; como a geração avança a cada ingestão, uma entrada de geração
+ * antiga nunca é servida, só substituída.
+ * A leitura é um get no ConcurrentHashMap e uma escrita volátil do relógio de
+ * acesso, sem lock; o lock só é tomado pela escrita quando o cache passa do
+ * limite, e então as entradas usadas há mais tempo (LRU) saem até 90% da
+ * capacidade, para não despejar a cada inserção.
+ */
+public class RetrievalCache {
+
+    private final int maxEntries;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong savedNanos = new AtomicLong();
+
+    /**
+     * @param maxEntries limite de entradas (0 = cache desligado)
+     */
+    public RetrievalCache(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries não pode ser negativo");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Devolve o resultado em cache para a geração atual, ou calcula e guarda.
+     *
+     * @param generation geração do índice lida ANTES de calcular, para que uma
+     *                   ingestão concorrente invalide o resultado
+     */
+    public List<TextSegment> get(String collection, String query, int maxResults, double bm25Weight,
+            double embeddingWeight, long generation, Supplier<List<TextSegment>> compute) {
+        if (maxEntries == 0) {
+            return compute.get();
+        }
+        Key key = new Key(collection, normalize(query), maxResults, bm25Weight, embeddingWeight);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.generation == generation) {
+                entry.lastAccess = clock.incrementAndGet();
+                hits.incrementAndGet();
+                savedNanos.addAndGet(entry.computeNanos);
+                return entry.results;
+            }
+            stale.incrementAndGet();
+        }
+        misses.incrementAndGet();
+
+        long start = System.nanoTime();
+        List<TextSegment> results = List.copyOf(compute.get());
+        Entry computed = new Entry(results, generation, System.nanoTime() - start, clock.incrementAndGet());
+        // Não sobrescrever uma entrada de geração mais nova gravada por outra thread
+        entries.merge(key, computed, (old, fresh) -> old.generation > fresh.generation ? old : fresh);
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+        return results;
+    }
+
+    private synchronized void evict() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        List<Map.Entry<Key, Long>> byAccess = new ArrayList<>();
+        // Copiar o relógio antes de ordenar: leituras concorrentes continuam mudando o valor
+        entries.forEach((key, entry) -> byAccess.add(Map.entry(key, entry.lastAccess)));
+        byAccess.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+
+        int target = (int) (maxEntries * 0.9);
+        for (Map.Entry<Key, Long> candidate : byAccess) {
+            if (entries.size() <= target) {
+                break;
+            }
+            if (entries.remove(candidate.getKey()) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Remove as entradas de uma coleção removida.
+     */
+    public void invalidate(String collection) {
+        entries.keySet().removeIf(key -> key.collection().equals(collection));
+    }
+
+    static String normalize(String query) {
+        return Normalizer.normalize(query, Normalizer.Form.NFC)
+                .toLowerCase(Locale.ROOT)
+                .trim()
+                .replaceAll("\\s+", " ");
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        metrics.put("cache.entries", entries.size());
+        metrics.put("cache.max_entries", maxEntries);
+        metrics.put("cache.hits", hitCount);
+        metrics.put("cache.misses", misses.get());
+        metrics.put("cache.hit_rate", total == 0 ? 0.0 : (double) hitCount / total);
+        metrics.put("cache.stale", stale.get());
+        metrics.put("cache.evictions", evictions.get());
+        metrics.put("cache.latency_saved_ms", savedNanos.get() / 1_000_000);
+        return metrics;
+    }
+
+    private record Key(String collection, String query, int maxResults, double bm25Weight,
+            double embeddingWeight) {
+    }
+
+    private static class Entry {
+        final List<TextSegment> results;
+        final long generation;
+        // Custo de calcular o resultado: o que cada acerto economiza
+        final long computeNanos;
+        volatile long lastAccess;
+
+        Entry(List<TextSegment> results, long generation, long computeNanos, long lastAccess) {
+            this.results = results;
+            this.generation = generation;
+            this.computeNanos = computeNanos;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
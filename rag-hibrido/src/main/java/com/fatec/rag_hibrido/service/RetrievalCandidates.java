@@ -0,0 +1,17 @@
+package com.fatec.rag_hibrido.service;
+
+import java.util.List;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+
+/**
+ * Listas ranqueadas de cada método antes da fusão: BM25 (com "bm25_score" nos
+ * metadados) e embeddings (com o score de similaridade).
+ */
+public record RetrievalCandidates(List<TextSegment> bm25, List<EmbeddingMatch<TextSegment>> embeddings) {
+
+    public boolean isEmpty() {
+        return bm25.isEmpty() && embeddings.isEmpty();
+    }
+}
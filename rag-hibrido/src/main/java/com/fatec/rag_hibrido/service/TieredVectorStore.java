@@ -0,0 +1,638 @@
+package com.fatec.rag_hibrido.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+
+/**
+ * Store de vetores e segmentos com orçamento de memória, substituindo o
+ * InMemoryEmbeddingStore (que cresce até OutOfMemoryError).
+ * Entradas quentes ficam no heap; quando o orçamento estoura, as menos
+ * acessadas (LFU com envelhecimento) vão para o disco e são liberadas. O disco
+ * tem dois arquivos: vectors.spill guarda só os vetores, em registros de
+ * tamanho fixo (um slot por entrada), e segments.spill guarda texto e
+ * metadados. A busca continua exata: os vetores frios são lidos em ordem de
+ * slot, em blocos sequenciais grandes, e o arquivo de segmentos só é lido para
+ * os k melhores resultados. Um acesso é contado quando a entrada aparece em um
+ * resultado, então os segmentos mais retornados tendem a ficar em memória.
+ * Registros de entradas removidas ou substituídas viram espaço morto; quando
+ * ele passa de compactionMinBytes e da metade dos arquivos, os registros vivos
+ * são regravados em arquivos novos (compactação). Os arquivos são descartados
+ * no close.
+ * Além do orçamento próprio, o store pode retirar memória de um MemoryBudget
+ * compartilhado com os stores das outras coleções: quando o total passa do
+ * limite, as entradas menos acessadas de todos eles vão para o disco.
+ */
+public class TieredVectorStore {
+    // Ao estourar o orçamento, libera até ficar abaixo desta fração
+    private static final double EVICTION_TARGET = 0.9;
+    // Tamanho de cada leitura sequencial de vetores frios
+    private static final int READ_CHUNK_BYTES = 1 << 20;
+    private static final String VECTOR_FILE = "vectors.spill";
+    private static final String SEGMENT_FILE = "segments.spill";
+    private static final long DEFAULT_COMPACTION_MIN_BYTES = 1 << 20;
+
+    private final long memoryBudgetBytes;
+    private final MemoryBudget sharedBudget;
+    private final Path spillDir;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hotBytes = new AtomicLong();
+    private final Object evictionLock = new Object();
+    // Buscas leem os arquivos com o lock de leitura; a compactação troca os
+    // arquivos com o de escrita
+    private final ReentrantReadWriteLock fileLock = new ReentrantReadWriteLock();
+    private final long compactionMinBytes;
+
+    // Todos os vetores do store têm a mesma dimensão (slots de tamanho fixo)
+    private volatile int dimension = -1;
+    private FileChannel vectorFile;
+    private FileChannel segmentFile;
+    private volatile int vectorSlots;
+    private volatile long segmentPosition;
+    private volatile long deadBytes;
+
+    private final AtomicLong vectorHits = new AtomicLong();
+    private final AtomicLong vectorMisses = new AtomicLong();
+    private final AtomicLong segmentHits = new AtomicLong();
+    private final AtomicLong segmentMisses = new AtomicLong();
+    private final AtomicLong spills = new AtomicLong();
+    private final AtomicLong promotions = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+
+    /**
+     * @param memoryBudgetBytes orçamento de heap para vetores e segmentos;
+     *                          zero ou negativo = sem limite (nada vai para o
+     *                          disco)
+     * @param spillDir          diretório do arquivo de spill
+     */
+    public TieredVectorStore(long memoryBudgetBytes, Path spillDir) {
+        this(memoryBudgetBytes, spillDir, DEFAULT_COMPACTION_MIN_BYTES);
+    }
+
+    /**
+     * @param compactionMinBytes espaço morto mínimo nos arquivos de spill antes
+     *                           de compactar
+     */
+    public TieredVectorStore(long memoryBudgetBytes, Path spillDir, long compactionMinBytes) {
+        this(memoryBudgetBytes, spillDir, compactionMinBytes, new MemoryBudget(0));
+    }
+
+    /**
+     * @param sharedBudget orçamento dividido com os stores das outras coleções
+     */
+    public TieredVectorStore(long memoryBudgetBytes, Path spillDir, MemoryBudget sharedBudget) {
+        this(memoryBudgetBytes, spillDir, DEFAULT_COMPACTION_MIN_BYTES, sharedBudget);
+    }
+
+    public TieredVectorStore(long memoryBudgetBytes, Path spillDir, long compactionMinBytes,
+            MemoryBudget sharedBudget) {
+        if ((memoryBudgetBytes > 0 || sharedBudget.isLimited()) && spillDir == null) {
+            throw new IllegalArgumentException("Orçamento de memória exige um diretório de spill");
+        }
+        this.memoryBudgetBytes = memoryBudgetBytes > 0 ? memoryBudgetBytes : Long.MAX_VALUE;
+        this.sharedBudget = sharedBudget;
+        this.spillDir = spillDir;
+        this.compactionMinBytes = compactionMinBytes;
+        sharedBudget.register(this);
+    }
+
+    public void add(String id, Embedding embedding, TextSegment segment) {
+        checkDimension(embedding.vector().length);
+        Entry entry = new Entry(embedding.vector(), segment);
+        Entry previous = entries.put(id, entry);
+        addHot(entry.bytes);
+        if (previous != null) {
+            discard(previous);
+        }
+        enforceBudget();
+    }
+
+    private synchronized void checkDimension(int length) {
+        if (dimension < 0) {
+            dimension = length;
+        } else if (dimension != length) {
+            throw new IllegalArgumentException(
+                    "Dimensão do vetor (" + length + ") diferente da do store (" + dimension + ")");
+        }
+    }
+
+    public void remove(String id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            discard(entry);
+        }
+    }
+
+    private void discard(Entry entry) {
+        entry.release();
+        if (markDead(entry)) {
+            compact();
+        }
+    }
+
+    /**
+     * Conta os registros da entrada como espaço morto e diz se já vale
+     * compactar.
+     */
+    private synchronized boolean markDead(Entry entry) {
+        if (entry.slot < 0) {
+            return false;
+        }
+        deadBytes += (long) dimension * Float.BYTES + entry.segmentLength;
+        return deadBytes >= compactionMinBytes && deadBytes * 2 >= spillBytes();
+    }
+
+    private long spillBytes() {
+        return (long) vectorSlots * Math.max(dimension, 0) * Float.BYTES + segmentPosition;
+    }
+
+    /**
+     * Regrava só os registros vivos em arquivos novos, em ordem de slot, e
+     * atualiza slot/offset de cada entrada. Bloqueia buscas e spills enquanto
+     * roda.
+     */
+    private void compact() {
+        fileLock.writeLock().lock();
+        try {
+            synchronized (this) {
+                if (deadBytes < compactionMinBytes || deadBytes * 2 < spillBytes()) {
+                    return;
+                }
+                List<Entry> live = new ArrayList<>();
+                for (Entry entry : entries.values()) {
+                    if (entry.slot >= 0) {
+                        live.add(entry);
+                    }
+                }
+                live.sort(Comparator.comparingInt(entry -> entry.slot));
+
+                Path vectorTemp = spillDir.resolve(VECTOR_FILE + ".compact");
+                Path segmentTemp = spillDir.resolve(SEGMENT_FILE + ".compact");
+                FileChannel newVectors = open(vectorTemp);
+                FileChannel newSegments = open(segmentTemp);
+                int vectorBytes = dimension * Float.BYTES;
+                int slots = 0;
+                long position = 0;
+                for (Entry entry : live) {
+                    write(newVectors, read(vectorFile, (long) entry.slot * vectorBytes, vectorBytes),
+                            (long) slots * vectorBytes);
+                    write(newSegments, read(segmentFile, entry.segmentOffset, entry.segmentLength), position);
+                    entry.segmentOffset = position;
+                    entry.slot = slots++;
+                    position += entry.segmentLength;
+                }
+
+                vectorFile.close();
+                segmentFile.close();
+                // Os canais novos continuam válidos depois de renomear o arquivo
+                Files.move(vectorTemp, spillDir.resolve(VECTOR_FILE), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(segmentTemp, spillDir.resolve(SEGMENT_FILE), StandardCopyOption.REPLACE_EXISTING);
+                vectorFile = newVectors;
+                segmentFile = newSegments;
+                vectorSlots = slots;
+                segmentPosition = position;
+                deadBytes = 0;
+                compactions.incrementAndGet();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao compactar os arquivos de spill", e);
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Busca exata por similaridade de cosseno. O score segue a escala do
+     * InMemoryEmbeddingStore: (cosseno + 1) / 2.
+     */
+    public List<EmbeddingMatch<TextSegment>> search(Embedding queryEmbedding, int maxResults, double minScore) {
+        float[] query = queryEmbedding.vector();
+        double queryNorm = norm(query);
+        PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+        List<Cold> cold = new ArrayList<>();
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+
+        fileLock.readLock().lock();
+        try {
+            // Quentes direto do heap; frios ficam para a leitura sequencial
+            for (Map.Entry<String, Entry> item : entries.entrySet()) {
+                Entry entry = item.getValue();
+                float[] vector = entry.vector;
+                if (vector != null) {
+                    offer(top, maxResults, minScore, item.getKey(), entry, vector, query, queryNorm);
+                } else {
+                    cold.add(new Cold(item.getKey(), entry, entry.slot));
+                }
+            }
+            vectorHits.addAndGet(entries.size() - cold.size());
+            vectorMisses.addAndGet(cold.size());
+            if (!cold.isEmpty()) {
+                scanCold(cold, top, maxResults, minScore, query, queryNorm);
+            }
+
+            while (!top.isEmpty()) {
+                Scored scored = top.poll();
+                TextSegment segment = access(scored.entry(), scored.vector());
+                matches.add(0, new EmbeddingMatch<>(scored.score(), scored.id(), Embedding.from(scored.vector()),
+                        segment));
+            }
+        } finally {
+            fileLock.readLock().unlock();
+        }
+        enforceBudget();
+        return matches;
+    }
+
+    private static void offer(PriorityQueue<Scored> top, int maxResults, double minScore, String id, Entry entry,
+            float[] vector, float[] query, double queryNorm) {
+        double score = (dot(query, vector) / (queryNorm * entry.norm) + 1) / 2;
+        if (Double.isNaN(score) || score < minScore) {
+            return;
+        }
+        top.add(new Scored(id, entry, vector, score));
+        if (top.size() > maxResults) {
+            top.poll();
+        }
+    }
+
+    /**
+     * Lê os vetores frios em ordem de slot, um bloco sequencial por vez, em vez
+     * de uma leitura posicional por entrada.
+     */
+    private void scanCold(List<Cold> cold, PriorityQueue<Scored> top, int maxResults, double minScore,
+            float[] query, double queryNorm) {
+        cold.sort(Comparator.comparingInt(Cold::slot));
+        int slotsPerChunk = Math.max(1, READ_CHUNK_BYTES / (dimension * Float.BYTES));
+        int i = 0;
+        while (i < cold.size()) {
+            int firstSlot = cold.get(i).slot();
+            int end = i;
+            while (end < cold.size() && cold.get(end).slot() < firstSlot + slotsPerChunk) {
+                end++;
+            }
+            int lastSlot = cold.get(end - 1).slot();
+            FloatBuffer chunk = read(vectorFile, (long) firstSlot * dimension * Float.BYTES,
+                    (lastSlot - firstSlot + 1) * dimension * Float.BYTES).asFloatBuffer();
+            for (; i < end; i++) {
+                Cold item = cold.get(i);
+                float[] vector = new float[dimension];
+                chunk.get((item.slot() - firstSlot) * dimension, vector);
+                offer(top, maxResults, minScore, item.id(), item.entry(), vector, query, queryNorm);
+            }
+        }
+    }
+
+    /**
+     * Conta o acesso e devolve o segmento, trazendo a entrada de volta para a
+     * memória se ela estava no disco.
+     */
+    private TextSegment access(Entry entry, float[] vector) {
+        entry.frequency.incrementAndGet();
+        TextSegment segment = entry.segment;
+        if (segment != null) {
+            segmentHits.incrementAndGet();
+            return segment;
+        }
+        segmentMisses.incrementAndGet();
+        segment = readSegment(entry);
+        if (entry.promote(vector, segment)) {
+            promotions.incrementAndGet();
+        }
+        return segment;
+    }
+
+    private void addHot(long bytes) {
+        hotBytes.addAndGet(bytes);
+        sharedBudget.add(bytes);
+    }
+
+    /**
+     * Quando o orçamento estoura, grava em disco as entradas quentes menos
+     * acessadas até voltar a EVICTION_TARGET e envelhece os contadores, para
+     * que acessos antigos percam peso. O orçamento compartilhado segue a mesma
+     * regra sobre as entradas de todos os stores que o dividem.
+     */
+    private void enforceBudget() {
+        if (hotBytes.get() > memoryBudgetBytes) {
+            synchronized (evictionLock) {
+                if (hotBytes.get() > memoryBudgetBytes) {
+                    evict(List.of(this), hotBytes, memoryBudgetBytes);
+                }
+            }
+        }
+        if (sharedBudget.exceeded()) {
+            synchronized (sharedBudget) {
+                if (sharedBudget.exceeded()) {
+                    evict(sharedBudget.stores(), null, sharedBudget.limitBytes());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param used bytes quentes a reduzir, ou null para o total do orçamento
+     *             compartilhado
+     */
+    private void evict(List<TieredVectorStore> stores, AtomicLong used, long budget) {
+        // Fotografia das frequências: elas mudam durante a ordenação
+        List<Candidate> hot = new ArrayList<>();
+        for (TieredVectorStore store : stores) {
+            for (Entry entry : store.entries.values()) {
+                if (entry.vector != null) {
+                    hot.add(new Candidate(store, entry, entry.frequency.get()));
+                }
+            }
+        }
+        hot.sort(Comparator.comparingInt(Candidate::frequency));
+
+        long target = (long) (budget * EVICTION_TARGET);
+        for (Candidate candidate : hot) {
+            if ((used != null ? used.get() : sharedBudget.usedBytes()) <= target) {
+                break;
+            }
+            if (candidate.entry().spill()) {
+                candidate.store().spills.incrementAndGet();
+            }
+        }
+        for (TieredVectorStore store : stores) {
+            for (Entry entry : store.entries.values()) {
+                entry.frequency.updateAndGet(f -> f >> 1);
+            }
+        }
+    }
+
+    private void openFiles() throws IOException {
+        if (vectorFile == null) {
+            Files.createDirectories(spillDir);
+            vectorFile = open(spillDir.resolve(VECTOR_FILE));
+            segmentFile = open(spillDir.resolve(SEGMENT_FILE));
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Grava o vetor no próximo slot de vectors.spill e o segmento no fim de
+     * segments.spill, publicando os dois endereços na entrada de uma vez (a
+     * compactação não pode ver só um deles).
+     */
+    private synchronized void append(Entry entry, float[] vector, byte[] segmentRecord) {
+        try {
+            openFiles();
+            long offset = segmentPosition;
+            write(segmentFile, ByteBuffer.wrap(segmentRecord), offset);
+            segmentPosition = offset + segmentRecord.length;
+
+            ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+            buffer.asFloatBuffer().put(vector);
+            int slot = vectorSlots;
+            write(vectorFile, buffer, (long) slot * vector.length * Float.BYTES);
+            vectorSlots = slot + 1;
+
+            entry.segmentLength = segmentRecord.length;
+            entry.segmentOffset = offset;
+            entry.slot = slot;
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao gravar no arquivo de spill", e);
+        }
+    }
+
+    private static void write(FileChannel file, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += file.write(buffer, position);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel file, long position, int length) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (file.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Fim inesperado do arquivo de spill");
+                }
+            }
+            return buffer.flip();
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao ler o arquivo de spill", e);
+        }
+    }
+
+    private TextSegment readSegment(Entry entry) {
+        ByteBuffer buffer = read(segmentFile, entry.segmentOffset, entry.segmentLength);
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(buffer.array(), 0, buffer.limit()))) {
+            String text = readString(in);
+            int size = in.readInt();
+            Map<String, Object> metadata = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                String key = readString(in);
+                char type = in.readChar();
+                String value = readString(in);
+                metadata.put(key, switch (type) {
+                    case 'I' -> Integer.valueOf(value);
+                    case 'L' -> Long.valueOf(value);
+                    case 'F' -> Float.valueOf(value);
+                    case 'D' -> Double.valueOf(value);
+                    default -> value;
+                });
+            }
+            return TextSegment.from(text, Metadata.from(metadata));
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao ler segmento do arquivo de spill", e);
+        }
+    }
+
+    /**
+     * Registro de segments.spill: texto seguido dos metadados com o tipo de
+     * cada valor.
+     */
+    private static byte[] serialize(TextSegment segment) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeString(out, segment.text());
+            Map<String, Object> metadata = segment.metadata().toMap();
+            out.writeInt(metadata.size());
+            for (Map.Entry<String, Object> item : metadata.entrySet()) {
+                Object value = item.getValue();
+                writeString(out, item.getKey());
+                out.writeChar(value instanceof Integer ? 'I'
+                        : value instanceof Long ? 'L'
+                                : value instanceof Float ? 'F'
+                                        : value instanceof Double ? 'D' : 'S');
+                writeString(out, String.valueOf(value));
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao serializar segmento", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static double norm(float[] vector) {
+        return Math.sqrt(dot(vector, vector));
+    }
+
+    /**
+     * Estimativa do espaço ocupado no heap por um vetor e seu segmento.
+     */
+    private static long estimateBytes(float[] vector, TextSegment segment) {
+        long bytes = 64 + 16 + (long) vector.length * Float.BYTES + 40 + 2L * segment.text().length();
+        for (Map.Entry<String, Object> item : segment.metadata().toMap().entrySet()) {
+            bytes += 64 + 2L * (item.getKey().length() + String.valueOf(item.getValue()).length());
+        }
+        return bytes;
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long hot = entries.values().stream().filter(e -> e.vector != null).count();
+        metrics.put("storage.entries", entries.size());
+        metrics.put("storage.hot_entries", hot);
+        metrics.put("storage.cold_entries", entries.size() - hot);
+        metrics.put("storage.hot_bytes", hotBytes.get());
+        metrics.put("storage.memory_budget_bytes", memoryBudgetBytes == Long.MAX_VALUE ? -1 : memoryBudgetBytes);
+        metrics.put("storage.spill_file_bytes", spillBytes());
+        metrics.put("storage.spill_dead_bytes", deadBytes);
+        metrics.put("storage.compactions", compactions.get());
+        metrics.put("storage.spills", spills.get());
+        metrics.put("storage.promotions", promotions.get());
+        metrics.put("storage.vector_hits", vectorHits.get());
+        metrics.put("storage.vector_misses", vectorMisses.get());
+        metrics.put("storage.segment_hits", segmentHits.get());
+        metrics.put("storage.segment_misses", segmentMisses.get());
+        return metrics;
+    }
+
+    public synchronized void close() {
+        sharedBudget.unregister(this);
+        sharedBudget.add(-hotBytes.get());
+        try {
+            if (vectorFile != null) {
+                vectorFile.close();
+                segmentFile.close();
+                Files.deleteIfExists(spillDir.resolve(VECTOR_FILE));
+                Files.deleteIfExists(spillDir.resolve(SEGMENT_FILE));
+            }
+        } catch (IOException e) {
+            // Ignorar erros no fechamento
+        }
+    }
+
+    private record Scored(String id, Entry entry, float[] vector, double score) {
+    }
+
+    private record Candidate(TieredVectorStore store, Entry entry, int frequency) {
+    }
+
+    private record Cold(String id, Entry entry, int slot) {
+    }
+
+    /**
+     * Vetor e segmento de um id. vector/segment ficam null enquanto a entrada
+     * está só no disco; slot e segmentOffset são publicados antes de a memória
+     * ser liberada, então quem lê vector == null sempre encontra os registros
+     * gravados.
+     */
+    private final class Entry {
+        final double norm;
+        final long bytes;
+        final AtomicInteger frequency = new AtomicInteger(1);
+        volatile float[] vector;
+        volatile TextSegment segment;
+        volatile int slot = -1;
+        volatile long segmentOffset;
+        volatile int segmentLength;
+        private boolean released;
+
+        Entry(float[] vector, TextSegment segment) {
+            this.norm = norm(vector);
+            this.bytes = estimateBytes(vector, segment);
+            this.vector = vector;
+            this.segment = segment;
+        }
+
+        synchronized boolean spill() {
+            if (vector == null || released) {
+                return false;
+            }
+            if (slot < 0) {
+                append(this, vector, serialize(segment));
+            }
+            vector = null;
+            segment = null;
+            addHot(-bytes);
+            return true;
+        }
+
+        synchronized boolean promote(float[] vector, TextSegment segment) {
+            if (this.vector != null || released) {
+                return false;
+            }
+            this.vector = vector;
+            this.segment = segment;
+            addHot(bytes);
+            return true;
+        }
+
+        synchronized void release() {
+            if (vector != null && !released) {
+                addHot(-bytes);
+            }
+            released = true;
+        }
+    }
+}
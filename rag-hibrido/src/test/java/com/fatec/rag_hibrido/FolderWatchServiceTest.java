@@ -0,0 +1,160 @@
+package com.fatec.rag_hibrido;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fatec.rag_hibrido.service.FolderWatchService;
+import com.fatec.rag_hibrido.service.HybridRAGSystem;
+
+public class FolderWatchServiceTest {
+
+    private static final long DEBOUNCE_MS = 300;
+    private static final long SCAN_INTERVAL_MS = 1000;
+
+    @TempDir
+    Path tempDir;
+
+    private HybridRAGSystem rag;
+    private FolderWatchService watcher;
+
+    @BeforeEach
+    void setUp() {
+        rag = new HybridRAGSystem();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (watcher != null) {
+            watcher.close();
+        }
+        rag.close();
+    }
+
+    private FolderWatchService start(Path root) throws Exception {
+        watcher = new FolderWatchService(rag, root.toString(), HybridRAGSystem.DEFAULT_COLLECTION, DEBOUNCE_MS,
+                SCAN_INTERVAL_MS);
+        watcher.start();
+        return watcher;
+    }
+
+    private long metric(String key) {
+        return ((Number) watcher.metrics().get(key)).longValue();
+    }
+
+    private int segments() {
+        return rag.getCollection(null).segmentCount();
+    }
+
+    private static void await(String description, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 15_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Tempo esgotado esperando: " + description);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    void burstOfWritesIsIndexedOnce() throws Exception {
+        Path root = Files.createDirectories(tempDir.resolve("docs"));
+        start(root);
+        Path file = root.resolve("contrato.txt");
+
+        // Rajada de gravações mais curta que o debounce
+        for (int i = 1; i <= 5; i++) {
+            Files.writeString(file, "O contrato de locação versão " + i + " tem cláusula de multa.");
+            Thread.sleep(20);
+        }
+
+        await("arquivo indexado", () -> metric("watch.files_indexed") == 1);
+        // Nem os eventos atrasados nem a varredura reindexam o mesmo conteúdo
+        Thread.sleep(SCAN_INTERVAL_MS + DEBOUNCE_MS * 2);
+        assertEquals(1, metric("watch.files_indexed"));
+        assertTrue(rag.retrieveHybrid("contrato locação", 3, 0.5, 0.5).stream()
+                .anyMatch(s -> s.text().contains("versão 5")));
+
+        // Atraso entre a última gravação e o arquivo pesquisável, debounce incluso
+        assertTrue(metric("watch.lag.last_ms") >= DEBOUNCE_MS - 50,
+                "lag " + metric("watch.lag.last_ms") + "ms menor que o debounce");
+    }
+
+    @Test
+    void deletingFileOrParentDirectoryRemovesSegments() throws Exception {
+        Path root = Files.createDirectories(tempDir.resolve("docs"));
+        Path subdir = Files.createDirectories(root.resolve("juridico"));
+        Files.writeString(root.resolve("python.txt"), "Python é popular para ciência de dados.");
+        Files.writeString(subdir.resolve("contrato.txt"), "O contrato de locação tem cláusula de multa.");
+        start(root);
+        await("dois arquivos indexados", () -> metric("watch.tracked_files") == 2);
+        int initialSegments = segments();
+
+        Files.delete(root.resolve("python.txt"));
+        await("arquivo removido", () -> metric("watch.files_removed") == 1);
+        assertTrue(segments() < initialSegments);
+
+        try (Stream<Path> paths = Files.walk(subdir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        await("pasta removida", () -> metric("watch.files_removed") == 2);
+        assertEquals(0, segments());
+        assertEquals(0, metric("watch.tracked_files"));
+    }
+
+    @Test
+    void unavailableRootKeepsIndexedFiles() throws Exception {
+        Path root = Files.createDirectories(tempDir.resolve("montagem"));
+        Files.writeString(root.resolve("contrato.txt"), "O contrato de locação tem cláusula de multa.");
+        start(root);
+        await("arquivo indexado", () -> metric("watch.tracked_files") == 1);
+        int indexedSegments = segments();
+
+        // Compartilhamento caído: a raiz some por algumas varreduras e volta
+        Path unmounted = tempDir.resolve("desmontada");
+        Files.move(root, unmounted);
+        long scans = metric("watch.scans");
+        await("varreduras com a raiz fora", () -> metric("watch.scans") >= scans + 2);
+        assertEquals(0, metric("watch.files_removed"));
+        assertEquals(indexedSegments, segments());
+
+        Files.move(unmounted, root);
+        long scansBack = metric("watch.scans");
+        await("varredura com a raiz de volta", () -> metric("watch.scans") >= scansBack + 1);
+        // Nada a reembeddar: mtime e tamanho não mudaram
+        assertEquals(1, metric("watch.files_indexed"));
+        assertEquals(0, metric("watch.files_removed"));
+    }
+
+    @Test
+    void reconcilePicksUpFilesWrittenWhileEventsWereMissed() throws Exception {
+        // A pasta monitorada ainda não existe: nada está registrado no WatchService
+        Path root = tempDir.resolve("compartilhada");
+        start(root);
+
+        Path staging = Files.createDirectories(tempDir.resolve("preparo"));
+        Files.writeString(staging.resolve("relatorio.txt"), "Relatório trimestral de vendas da filial.");
+        // Um único rename: nenhum evento chega para o arquivo
+        Files.move(staging, root);
+
+        await("arquivo encontrado pela varredura", () -> metric("watch.files_indexed") == 1);
+        assertTrue(metric("watch.scans") >= 2);
+        assertTrue(rag.retrieveHybrid("relatório vendas", 3, 0.5, 0.5).stream()
+                .anyMatch(s -> s.text().contains("trimestral")));
+
+        // Depois de registrada pela varredura, a pasta passa a gerar eventos
+        Files.writeString(root.resolve("relatorio.txt"), "Relatório anual de vendas consolidado.");
+        await("arquivo reindexado", () -> metric("watch.files_indexed") == 2);
+        assertTrue(metric("watch.lag.avg_ms") > 0);
+        assertTrue(metric("watch.lag.max_ms") >= metric("watch.lag.last_ms"));
+    }
+}
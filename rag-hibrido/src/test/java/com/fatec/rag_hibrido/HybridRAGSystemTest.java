@@ -2,15 +2,29 @@ package com.fatec.rag_hibrido;
 
 import org.junit.jupiter.api.Test;
 
+import com.fatec.rag_hibrido.service.BM25Retriever;
+import com.fatec.rag_hibrido.service.CollectionQuotaExceededException;
+import com.fatec.rag_hibrido.service.CollectionSettings;
 import com.fatec.rag_hibrido.service.HybridRAGSystem;
+import com.fatec.rag_hibrido.service.RagCollection;
 
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class HybridRAGSystemTest {
     @Test
@@ -55,4 +69,113 @@ public class HybridRAGSystemTest {
         assertFalse(fused.isEmpty());
         assertTrue(fused.get(0).text().contains("Doc1") || fused.get(0).text().contains("Doc2"));
     }
+
+    @Test
+    void testBm25KeepsMetadataTypes() {
+        BM25Retriever bm25 = new BM25Retriever();
+        bm25.addDocument(TextSegment.from("Contrato de locação residencial.",
+                new Metadata().put("fonte", "juridico").put("ano", 2023).put("paginas", 12L)));
+
+        Metadata metadata = bm25.retrieve("contrato", 1).get(0).metadata();
+        assertEquals("juridico", metadata.getString("fonte"));
+        assertEquals(2023, metadata.getInteger("ano"));
+        assertEquals(12L, metadata.getLong("paginas"));
+        bm25.close();
+    }
+
+    @Test
+    void testCollectionsAreIsolated() {
+        HybridRAGSystem rag = new HybridRAGSystem();
+        rag.createCollection("juridico", rag.getDefaultSettings());
+
+        rag.loadDocuments("juridico", Arrays.asList(
+                Document.from("O contrato de locação tem cláusula de multa por rescisão.")));
+        rag.loadDocuments(Arrays.asList(
+                Document.from("Python é popular para ciência de dados.")));
+
+        List<TextSegment> juridico = rag.retrieveHybrid("juridico", "contrato de locação", 3, 0.5, 0.5);
+        List<TextSegment> padrao = rag.retrieveHybrid("contrato de locação", 3, 0.5, 0.5);
+        assertTrue(juridico.stream().anyMatch(s -> s.text().contains("contrato")));
+        assertTrue(padrao.stream().noneMatch(s -> s.text().contains("contrato")));
+
+        rag.dropCollection("juridico");
+        assertThrows(NoSuchElementException.class,
+                () -> rag.retrieveHybrid("juridico", "contrato", 3, 0.5, 0.5));
+        rag.close();
+    }
+
+    @Test
+    void testIngestQuotaRejectsInsteadOfQueueing() throws Exception {
+        RagCollection collection = new RagCollection("carga", new CollectionSettings(500, 50, 1, 16, 0), null);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Modelo de embeddings preso até o fim do teste
+        EmbeddingModel blocked = segments -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return Response.from(segments.stream().map(segment -> Embedding.from(new float[] { 1f, 0f }))
+                    .collect(Collectors.toList()));
+        };
+        CompletableFuture<Void> bulk = CompletableFuture.runAsync(
+                () -> collection.loadDocuments(List.of(Document.from("Ingestão em massa.")), blocked));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // A segunda ingestão é recusada logo, sem prender a thread da requisição
+        long start = System.nanoTime();
+        assertThrows(CollectionQuotaExceededException.class,
+                () -> collection.loadDocuments(List.of(Document.from("Outra ingestão.")), blocked));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+        // Consultas têm cota própria
+        assertEquals("ok", collection.query(() -> "ok"));
+
+        release.countDown();
+        bulk.get(5, TimeUnit.SECONDS);
+        assertEquals(1, collection.segmentCount());
+        collection.close();
+    }
+
+    @Test
+    void testCollectionsDrawFromSystemMemoryBudget() throws Exception {
+        Path spillDir = Files.createTempDirectory("rag-orcamento");
+        HybridRAGSystem rag = new HybridRAGSystem("demo", "llama3", "http://localhost:11434", "", "",
+                30000, 8, 100, "", "llama3", 2000, 1, spillDir.toString(), 500, 50, 2, 16, 1000);
+
+        // Uma coleção não pode pedir mais memória que o sistema inteiro
+        assertThrows(IllegalArgumentException.class,
+                () -> rag.createCollection("grande", new CollectionSettings(500, 50, 2, 16, 2)));
+        assertThrows(IllegalArgumentException.class, () -> new CollectionSettings(500, 50, 2, 16, -1));
+
+        // Sem limite próprio, a coleção ainda retira do orçamento do sistema
+        rag.createCollection("juridico", new CollectionSettings(500, 50, 2, 16, 0));
+        rag.loadDocuments("juridico", Arrays.asList(
+                Document.from("O contrato de locação tem cláusula de multa por rescisão.")));
+        assertEquals(1024L * 1024, rag.metrics().get("storage.budget_bytes"));
+        assertTrue((long) rag.metrics().get("storage.budget_used_bytes") > 0);
+        rag.close();
+    }
+
+    @Test
+    void testReindexSourceReplacesOnlyThatFile() {
+        HybridRAGSystem rag = new HybridRAGSystem();
+        rag.loadDocuments(Arrays.asList(
+                Document.from("Python é popular para ciência de dados.")));
+        rag.reindexSource(HybridRAGSystem.DEFAULT_COLLECTION, "/pasta/contrato.txt", Arrays.asList(
+                Document.from("O contrato de locação tem cláusula de multa por rescisão.")));
+
+        // Nova versão do arquivo substitui a anterior nos dois índices
+        rag.reindexSource(HybridRAGSystem.DEFAULT_COLLECTION, "/pasta/contrato.txt", Arrays.asList(
+                Document.from("O contrato de compra e venda foi assinado pelas partes.")));
+        List<TextSegment> resultados = rag.retrieveHybrid("contrato locação multa", 5, 0.5, 0.5);
+        assertTrue(resultados.stream().noneMatch(s -> s.text().contains("locação")));
+        assertTrue(resultados.stream().anyMatch(s -> s.text().contains("compra e venda")));
+        assertEquals(2, rag.getCollection(null).segmentCount());
+
+        rag.removeSource(HybridRAGSystem.DEFAULT_COLLECTION, "/pasta/contrato.txt");
+        assertEquals(1, rag.getCollection(null).segmentCount());
+        rag.close();
+    }
 }
@@ -0,0 +1,182 @@
+package com.fatec.rag_hibrido;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.fatec.rag_hibrido.service.AnswerSource;
+import com.fatec.rag_hibrido.service.ExtractiveAnswerBuilder;
+import com.fatec.rag_hibrido.service.RagAnswer;
+import com.fatec.rag_hibrido.service.ResilientChatModel;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+public class ResilientChatModelTest {
+
+    private static ChatLanguageModel model(String text, long latencyMs) {
+        return messages -> {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return Response.from(AiMessage.from(text));
+        };
+    }
+
+    @Test
+    void testPrimaryServesWhenFast() {
+        ResilientChatModel llm = new ResilientChatModel(model("principal", 0), model("hedge", 0),
+                Duration.ofSeconds(2), 2, Duration.ZERO, Duration.ofMillis(500));
+
+        Optional<RagAnswer> answer = llm.generate("pergunta");
+
+        assertTrue(answer.isPresent());
+        assertEquals(AnswerSource.LLM_PRIMARY, answer.get().source());
+        assertEquals("principal", answer.get().text());
+        llm.close();
+    }
+
+    @Test
+    void testHedgeServesWhenPrimaryIsSlow() {
+        ResilientChatModel llm = new ResilientChatModel(model("principal", 5000), model("hedge", 0),
+                Duration.ofSeconds(2), 2, Duration.ZERO, Duration.ofMillis(50));
+
+        Optional<RagAnswer> answer = llm.generate("pergunta");
+
+        assertTrue(answer.isPresent());
+        assertEquals(AnswerSource.LLM_HEDGE, answer.get().source());
+        assertEquals(1L, llm.metrics().get("llm.hedges_launched"));
+        llm.close();
+    }
+
+    @Test
+    void testAbandonedPrimaryStillHoldsBulkheadSlot() throws Exception {
+        // Como a leitura de socket do cliente HTTP, ignora a interrupção
+        ChatLanguageModel uninterruptible = messages -> {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1000);
+            while (System.nanoTime() < end) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    // Ignorar, como o socket
+                }
+            }
+            return Response.from(AiMessage.from("principal"));
+        };
+        ResilientChatModel llm = new ResilientChatModel(uninterruptible, model("hedge", 0),
+                Duration.ofSeconds(2), 2, Duration.ZERO, Duration.ofMillis(50));
+
+        assertEquals(AnswerSource.LLM_HEDGE, llm.generate("pergunta").orElseThrow().source());
+        // O principal foi cancelado mas continua no backend
+        assertEquals(1, llm.metrics().get("llm.in_flight"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((int) llm.metrics().get("llm.in_flight") != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, llm.metrics().get("llm.in_flight"));
+        llm.close();
+    }
+
+    @Test
+    void testHedgeServesWhenPrimaryNeverReturns() throws Exception {
+        // Principal preso na leitura do socket até o fim do teste
+        CountDownLatch release = new CountDownLatch(1);
+        ChatLanguageModel stuck = messages -> {
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // Ignorar, como o socket
+                }
+            }
+            return Response.from(AiMessage.from("principal"));
+        };
+        ResilientChatModel llm = new ResilientChatModel(stuck, model("hedge", 10),
+                Duration.ofSeconds(2), 2, Duration.ofMillis(500), Duration.ofMillis(50));
+        try {
+            // As duas primeiras chamadas ficam abandonadas no principal e esgotam o bulkhead dele
+            assertEquals(AnswerSource.LLM_HEDGE, llm.generate("a").orElseThrow().source());
+            assertEquals(AnswerSource.LLM_HEDGE, llm.generate("b").orElseThrow().source());
+            assertEquals(2, llm.metrics().get("llm.in_flight.primary"));
+
+            // Mais chamadores simultâneos que maxConcurrent: o secundário atende todos
+            List<CompletableFuture<Optional<RagAnswer>>> callers = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                callers.add(CompletableFuture.supplyAsync(() -> llm.generate("pergunta")));
+            }
+            for (CompletableFuture<Optional<RagAnswer>> caller : callers) {
+                assertEquals(AnswerSource.LLM_HEDGE, caller.get(5, TimeUnit.SECONDS).orElseThrow().source());
+            }
+            assertEquals(0L, llm.metrics().get("llm.bulkhead_rejected"));
+            assertEquals(6L, llm.metrics().get("llm.primary_bypassed"));
+            assertEquals(2, llm.metrics().get("llm.in_flight.primary"));
+        } finally {
+            release.countDown();
+            llm.close();
+        }
+    }
+
+    @Test
+    void testDeadlineExpires() {
+        ResilientChatModel llm = new ResilientChatModel(model("principal", 5000), null,
+                Duration.ofMillis(100), 2, Duration.ZERO, Duration.ofMillis(50));
+
+        long start = System.nanoTime();
+        Optional<RagAnswer> answer = llm.generate("pergunta");
+
+        assertTrue(answer.isEmpty());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1L, llm.metrics().get("llm.timeouts"));
+        llm.close();
+    }
+
+    @Test
+    void testBulkheadRejectsWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ChatLanguageModel blocked = messages -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return Response.from(AiMessage.from("principal"));
+        };
+        ResilientChatModel llm = new ResilientChatModel(blocked, null,
+                Duration.ofSeconds(5), 1, Duration.ofMillis(10), Duration.ofMillis(50));
+
+        CompletableFuture<Optional<RagAnswer>> first = CompletableFuture.supplyAsync(() -> llm.generate("a"));
+        while ((int) llm.metrics().get("llm.in_flight") == 0) {
+            Thread.sleep(5);
+        }
+
+        assertTrue(llm.generate("b").isEmpty());
+        assertEquals(1L, llm.metrics().get("llm.bulkhead_rejected"));
+
+        release.countDown();
+        assertEquals(AnswerSource.LLM_PRIMARY, first.get(5, TimeUnit.SECONDS).orElseThrow().source());
+        llm.close();
+    }
+
+    @Test
+    void testExtractiveAnswerPrefersSentencesMatchingQuery() {
+        String answer = ExtractiveAnswerBuilder.build("O que é machine learning?", List.of(
+                TextSegment.from("Python é popular. Machine learning é um subcampo da IA."),
+                TextSegment.from("Brasil é o maior país da América do Sul.")), 1);
+
+        assertTrue(answer.contains("Machine learning é um subcampo da IA."));
+        assertFalse(answer.contains("Brasil"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.fatec.rag_hibrido;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.fatec.rag_hibrido.service.RetrievalCache;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+public class RetrievalCacheTest {
+
+    @Test
+    void repeatedQueryIsServedFromCache() {
+        RetrievalCache cache = new RetrievalCache(100);
+        AtomicInteger computations = new AtomicInteger();
+
+        List<TextSegment> first = cache.get("default", "Inteligência  Artificial", 3, 0.5, 0.5, 1,
+                () -> List.of(TextSegment.from("resultado " + computations.incrementAndGet())));
+        // Mesma consulta depois da normalização (caixa e espaços)
+        List<TextSegment> second = cache.get("default", " inteligência artificial ", 3, 0.5, 0.5, 1,
+                () -> List.of(TextSegment.from("resultado " + computations.incrementAndGet())));
+
+        assertEquals(1, computations.get());
+        assertEquals(first, second);
+        assertEquals(1L, cache.metrics().get("cache.hits"));
+        assertEquals(0.5, cache.metrics().get("cache.hit_rate"));
+    }
+
+    @Test
+    void newGenerationOrDifferentParametersMiss() {
+        RetrievalCache cache = new RetrievalCache(100);
+        AtomicInteger computations = new AtomicInteger();
+
+        cache.get("default", "contrato", 3, 0.5, 0.5, 1, () -> List.of(TextSegment.from("v1")));
+        List<TextSegment> afterIngest = cache.get("default", "contrato", 3, 0.5, 0.5, 2, () -> {
+            computations.incrementAndGet();
+            return List.of(TextSegment.from("v2"));
+        });
+        cache.get("default", "contrato", 5, 0.5, 0.5, 2, () -> {
+            computations.incrementAndGet();
+            return List.of();
+        });
+        cache.get("juridico", "contrato", 3, 0.5, 0.5, 2, () -> {
+            computations.incrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(3, computations.get());
+        assertEquals("v2", afterIngest.get(0).text());
+        assertEquals(1L, cache.metrics().get("cache.stale"));
+        // A entrada antiga foi substituída pela da geração nova
+        assertEquals("v2", cache.get("default", "contrato", 3, 0.5, 0.5, 2, List::of).get(0).text());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() {
+        RetrievalCache cache = new RetrievalCache(10);
+        for (int i = 0; i < 10; i++) {
+            cache.get("default", "consulta " + i, 3, 0.5, 0.5, 1, List::of);
+        }
+        // Manter a consulta 0 quente
+        cache.get("default", "consulta 0", 3, 0.5, 0.5, 1, List::of);
+        cache.get("default", "consulta nova", 3, 0.5, 0.5, 1, List::of);
+
+        assertTrue((int) cache.metrics().get("cache.entries") <= 10);
+        assertTrue((long) cache.metrics().get("cache.evictions") > 0);
+        AtomicInteger computations = new AtomicInteger();
+        cache.get("default", "consulta 0", 3, 0.5, 0.5, 1, () -> {
+            computations.incrementAndGet();
+            return List.of();
+        });
+        assertEquals(0, computations.get());
+    }
+}
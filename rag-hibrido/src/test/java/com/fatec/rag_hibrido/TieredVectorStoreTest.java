@@ -0,0 +1,152 @@
+package com.fatec.rag_hibrido;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fatec.rag_hibrido.service.MemoryBudget;
+import com.fatec.rag_hibrido.service.TieredVectorStore;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+
+public class TieredVectorStoreTest {
+
+    @TempDir
+    Path spillDir;
+
+    private static Embedding randomEmbedding(Random random) {
+        float[] vector = new float[16];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = random.nextFloat() - 0.5f;
+        }
+        return Embedding.from(vector);
+    }
+
+    @Test
+    void testSearchStaysExactWhenEntriesSpillToDisk() {
+        TieredVectorStore unlimited = new TieredVectorStore(0, null);
+        TieredVectorStore budgeted = new TieredVectorStore(4_000, spillDir);
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            Embedding embedding = randomEmbedding(random);
+            TextSegment segment = TextSegment.from("Segmento " + i, new Metadata().put("ordem", i));
+            unlimited.add("id-" + i, embedding, segment);
+            budgeted.add("id-" + i, embedding, segment);
+        }
+
+        assertTrue((long) budgeted.metrics().get("storage.spills") > 0);
+        assertTrue((long) budgeted.metrics().get("storage.hot_bytes") <= 4_000);
+
+        for (int q = 0; q < 20; q++) {
+            Embedding query = randomEmbedding(random);
+            List<EmbeddingMatch<TextSegment>> expected = unlimited.search(query, 5, 0.0);
+            List<EmbeddingMatch<TextSegment>> actual = budgeted.search(query, 5, 0.0);
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).embeddingId(), actual.get(i).embeddingId());
+                assertEquals(expected.get(i).embedded().text(), actual.get(i).embedded().text());
+                assertEquals(expected.get(i).embedded().metadata().getInteger("ordem"),
+                        actual.get(i).embedded().metadata().getInteger("ordem"));
+            }
+        }
+        assertTrue((long) budgeted.metrics().get("storage.vector_misses") > 0);
+        budgeted.close();
+    }
+
+    @Test
+    void testReindexingCompactsSpillFile() {
+        TieredVectorStore unlimited = new TieredVectorStore(0, null);
+        TieredVectorStore budgeted = new TieredVectorStore(4_000, spillDir, 2_000);
+        Random random = new Random(11);
+        long maxSpillBytes = 0;
+        // Os mesmos 50 ids regravados várias vezes, como arquivos reindexados
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                Embedding embedding = randomEmbedding(random);
+                TextSegment segment = TextSegment.from("Segmento " + round + "-" + i);
+                unlimited.add("id-" + i, embedding, segment);
+                budgeted.add("id-" + i, embedding, segment);
+            }
+            maxSpillBytes = Math.max(maxSpillBytes, (long) budgeted.metrics().get("storage.spill_file_bytes"));
+
+            Embedding query = randomEmbedding(random);
+            List<EmbeddingMatch<TextSegment>> expected = unlimited.search(query, 5, 0.0);
+            List<EmbeddingMatch<TextSegment>> actual = budgeted.search(query, 5, 0.0);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).embeddingId(), actual.get(i).embeddingId());
+                assertEquals(expected.get(i).embedded().text(), actual.get(i).embedded().text());
+            }
+        }
+
+        assertTrue((long) budgeted.metrics().get("storage.compactions") > 0);
+        // Sem compactação o arquivo teria os 1000 registros gravados
+        assertTrue(maxSpillBytes < 20_000, "spill_file_bytes cresceu até " + maxSpillBytes);
+        assertTrue((long) budgeted.metrics().get("storage.spill_dead_bytes") < maxSpillBytes);
+        budgeted.close();
+    }
+
+    @Test
+    void testSharedBudgetBoundsHeapAcrossStores() {
+        MemoryBudget budget = new MemoryBudget(6_000);
+        // Cinco coleções sem limite próprio retirando do mesmo orçamento
+        List<TieredVectorStore> stores = new ArrayList<>();
+        for (int c = 0; c < 5; c++) {
+            stores.add(new TieredVectorStore(0, spillDir.resolve("colecao-" + c), budget));
+        }
+        TieredVectorStore unlimited = new TieredVectorStore(0, null);
+        Random random = new Random(13);
+        for (int i = 0; i < 100; i++) {
+            for (int c = 0; c < stores.size(); c++) {
+                Embedding embedding = randomEmbedding(random);
+                TextSegment segment = TextSegment.from("Segmento " + c + "-" + i);
+                stores.get(c).add("id-" + i, embedding, segment);
+                if (c == 0) {
+                    unlimited.add("id-" + i, embedding, segment);
+                }
+                assertTrue(budget.usedBytes() <= 6_000, "orçamento compartilhado em " + budget.usedBytes());
+            }
+        }
+
+        long hotBytes = stores.stream().mapToLong(store -> (long) store.metrics().get("storage.hot_bytes")).sum();
+        assertEquals(hotBytes, budget.usedBytes());
+        assertTrue(stores.stream().allMatch(store -> (long) store.metrics().get("storage.spills") > 0));
+
+        Embedding query = randomEmbedding(random);
+        List<EmbeddingMatch<TextSegment>> expected = unlimited.search(query, 5, 0.0);
+        List<EmbeddingMatch<TextSegment>> actual = stores.get(0).search(query, 5, 0.0);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).embeddingId(), actual.get(i).embeddingId());
+        }
+
+        // Fechar uma coleção devolve a memória dela ao orçamento
+        long released = (long) stores.get(0).metrics().get("storage.hot_bytes");
+        long before = budget.usedBytes();
+        stores.get(0).close();
+        assertEquals(before - released, budget.usedBytes());
+        stores.subList(1, stores.size()).forEach(TieredVectorStore::close);
+    }
+
+    @Test
+    void testRemovedEntriesAreNotReturned() {
+        TieredVectorStore store = new TieredVectorStore(0, null);
+        Embedding embedding = Embedding.from(new float[] { 1f, 0f });
+        store.add("a", embedding, TextSegment.from("A"));
+        store.add("b", embedding, TextSegment.from("B"));
+
+        store.remove("a");
+
+        List<EmbeddingMatch<TextSegment>> matches = store.search(embedding, 5, 0.0);
+        assertEquals(1, matches.size());
+        assertEquals("b", matches.get(0).embeddingId());
+    }
+}
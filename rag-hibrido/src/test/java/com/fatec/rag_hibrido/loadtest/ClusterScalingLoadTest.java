@@ -0,0 +1,210 @@
+package com.fatec.rag_hibrido.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Escalabilidade do modo coordenador: para cada quantidade de nós, sobe N nós
+ * e um coordenador, cada um em sua própria JVM (NodeProcess), distribui o mesmo
+ * corpus entre eles e procura a maior taxa de chegada que a recuperação
+ * distribuída (POST /api/cluster/retrieve) sustenta dentro da meta de p99.
+ * Em carga aberta a vazão medida é a própria taxa oferecida, então a
+ * capacidade é medida por varredura: a taxa começa em startRate e é
+ * multiplicada por rateStep até o p99 passar da meta ou os erros passarem de
+ * 1%. No fim imprime, por quantidade de nós, a maior taxa aprovada e os
+ * percentis nessa taxa.
+ *
+ * mvn -Ploadtest test -Dtest=ClusterScalingLoadTest -Dloadtest.cluster.nodeCounts=1,2,4
+ *
+ * Parâmetros: loadtest.cluster.nodeCounts, loadtest.cluster.documents,
+ * loadtest.cluster.startRate, loadtest.cluster.rateStep,
+ * loadtest.cluster.maxRate, loadtest.cluster.stepSeconds,
+ * loadtest.cluster.p99TargetMs, loadtest.cluster.nodeHeap,
+ * loadtest.cluster.cpusPerNode (fixa cada JVM em CPUs próprias com taskset;
+ * 0 = sem fixar), loadtest.embedding.latencyMs e loadtest.embedding.jitterMs.
+ *
+ * Fora do teste, scripts/cluster-local.sh sobe o mesmo arranjo a partir do
+ * jar: N processos na mesma máquina, um por porta, mais o coordenador.
+ */
+@Tag("loadtest")
+public class ClusterScalingLoadTest {
+
+    @Test
+    void maxRateWithinP99TargetByNodeCount() throws Exception {
+        List<Integer> nodeCounts = Arrays.stream(System.getProperty("loadtest.cluster.nodeCounts", "1,2,4").split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .collect(Collectors.toList());
+        int documents = Integer.getInteger("loadtest.cluster.documents", 2000);
+        double startRate = RagLoadTest.doubleProperty("loadtest.cluster.startRate", 10);
+        double rateStep = RagLoadTest.doubleProperty("loadtest.cluster.rateStep", 1.5);
+        double maxRate = RagLoadTest.doubleProperty("loadtest.cluster.maxRate", 2000);
+        Duration stepDuration = Duration.ofSeconds(Long.getLong("loadtest.cluster.stepSeconds", 10));
+        double p99TargetMs = RagLoadTest.doubleProperty("loadtest.cluster.p99TargetMs", 250);
+        String heap = System.getProperty("loadtest.cluster.nodeHeap", "512m");
+        int cpusPerNode = Integer.getInteger("loadtest.cluster.cpusPerNode", 0);
+
+        Map<Integer, Step> capacity = new LinkedHashMap<>();
+        try (StubModelServer chat = new StubModelServer(0, 0);
+                StubModelServer embeddings = new StubModelServer(Long.getLong("loadtest.embedding.latencyMs", 5),
+                        Long.getLong("loadtest.embedding.jitterMs", 5))) {
+            for (int nodeCount : nodeCounts) {
+                List<NodeProcess> nodes = new ArrayList<>();
+                try {
+                    for (int i = 0; i < nodeCount; i++) {
+                        nodes.add(NodeProcess.start("node-" + nodeCount + "-" + i, chat, embeddings, Map.of(),
+                                heap, cpus(i, cpusPerNode, nodeCount)));
+                    }
+                    try (NodeProcess coordinator = NodeProcess.start("coordinator-" + nodeCount, chat, embeddings,
+                            Map.of("rag.cluster.nodes", nodes.stream()
+                                    .map(NodeProcess::baseUrl)
+                                    .collect(Collectors.joining(","))),
+                            heap, cpus(nodeCount, cpusPerNode, nodeCount))) {
+                        String baseUrl = coordinator.baseUrl();
+                        seed(baseUrl, documents);
+
+                        Step best = null;
+                        for (double rate = startRate; rate <= maxRate; rate *= rateStep) {
+                            OpenModelLoadGenerator.Report report = new OpenModelLoadGenerator(42).run(rate,
+                                    stepDuration, List.of(new OpenModelLoadGenerator.Scenario(
+                                            "POST /api/cluster/retrieve", 1,
+                                            () -> RagLoadTest.post(baseUrl + "/api/cluster/retrieve",
+                                                    RagLoadTest.queryBody()))));
+                            report.print(String.format("%d nó(s), %d documentos, %.1f req/s", nodeCount,
+                                    documents, rate));
+                            Step step = new Step(rate, report);
+                            if (!step.meets(p99TargetMs)) {
+                                break;
+                            }
+                            best = step;
+                        }
+                        capacity.put(nodeCount, best);
+                    }
+                } finally {
+                    nodes.forEach(NodeProcess::close);
+                }
+            }
+        }
+
+        System.out.println("\n" + "=".repeat(80));
+        System.out.printf("Capacidade por quantidade de nós (maior taxa com p99 <= %.0f ms e erros <= 1%%)%n",
+                p99TargetMs);
+        System.out.println("=".repeat(80));
+        System.out.printf("%6s %12s %12s %10s %10s %10s%n", "nós", "taxa req/s", "vazão req/s", "p50 ms",
+                "p95 ms", "p99 ms");
+        capacity.forEach((nodeCount, step) -> {
+            if (step == null) {
+                System.out.printf("%6d %12s%n", nodeCount, "< " + startRate);
+                return;
+            }
+            LatencyRecorder r = step.recorder();
+            System.out.printf("%6d %12.1f %12.1f %10.1f %10.1f %10.1f%n", nodeCount, step.rate(),
+                    r.count() / (step.report().elapsedNanos() / 1_000_000_000.0),
+                    r.percentileMillis(50), r.percentileMillis(95), r.percentileMillis(99));
+        });
+
+        assertEquals(nodeCounts.size(), capacity.size());
+    }
+
+    /**
+     * CPUs do taskset para a JVM de índice 'index' (os nós e, por último, o
+     * coordenador), ou null se a máquina não tem núcleos para todos.
+     */
+    private static String cpus(int index, int cpusPerNode, int nodeCount) {
+        if (cpusPerNode <= 0) {
+            return null;
+        }
+        if ((nodeCount + 1) * cpusPerNode > Runtime.getRuntime().availableProcessors()) {
+            System.err.println("CPUs insuficientes para fixar " + (nodeCount + 1) + " JVMs com " + cpusPerNode
+                    + " núcleos cada; rodando sem taskset");
+            return null;
+        }
+        int first = index * cpusPerNode;
+        return first + "-" + (first + cpusPerNode - 1);
+    }
+
+    private record Step(double rate, OpenModelLoadGenerator.Report report) {
+
+        LatencyRecorder recorder() {
+            return report.recorders().values().iterator().next();
+        }
+
+        boolean meets(double p99TargetMs) {
+            return report.totalErrors() <= report.totalRequests() * 0.01
+                    && recorder().percentileMillis(99) <= p99TargetMs;
+        }
+    }
+
+    /**
+     * Um nó fora do ar não derruba a consulta: o coordenador responde com os
+     * resultados dos nós que responderam dentro do prazo.
+     */
+    @Test
+    void toleratesUnreachableNode() throws Exception {
+        try (StubModelServer chat = new StubModelServer(0, 0);
+                StubModelServer embeddings = new StubModelServer(0, 0);
+                ConfigurableApplicationContext node = RagLoadTest.startApp(chat, embeddings, Map.of());
+                ConfigurableApplicationContext coordinator = RagLoadTest.startApp(chat, embeddings, Map.of(
+                        "rag.cluster.nodes", baseUrl(node) + ",http://127.0.0.1:9",
+                        "rag.cluster.node-timeout-ms", "500"))) {
+            RagLoadTest.seed(baseUrl(node), 20);
+
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    RagLoadTest.post(baseUrl(coordinator) + "/api/cluster/retrieve", RagLoadTest.queryBody()),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode(), response.body());
+            assertTrue(response.body().contains("\"nodesQueried\":2"), response.body());
+            assertTrue(response.body().contains("\"nodesResponded\":1"), response.body());
+            // Os candidatos do nó que respondeu chegam ao resultado fundido
+            assertFalse(response.body().contains("\"sources\":[]"), response.body());
+        }
+    }
+
+    /**
+     * Com todos os nós fora do ar a consulta falha com 502, em vez de responder
+     * que o corpus não tem a informação.
+     */
+    @Test
+    void failsWhenNoNodeResponds() throws Exception {
+        try (StubModelServer chat = new StubModelServer(0, 0);
+                StubModelServer embeddings = new StubModelServer(0, 0);
+                ConfigurableApplicationContext coordinator = RagLoadTest.startApp(chat, embeddings, Map.of(
+                        "rag.cluster.nodes", "http://127.0.0.1:9",
+                        "rag.cluster.node-timeout-ms", "500"))) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    RagLoadTest.post(baseUrl(coordinator) + "/api/cluster/query", RagLoadTest.queryBody()),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(502, response.statusCode(), response.body());
+            // 502 do coordenador, e não 503 de modo coordenador desligado
+            assertTrue(response.body().contains("respondeu dentro do prazo"), response.body());
+        }
+    }
+
+    private static void seed(String coordinatorUrl, int documents) throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                RagLoadTest.post(coordinatorUrl + "/api/cluster/ingest", RagLoadTest.ingestBody(documents)),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Falha na carga inicial: " + response.body());
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext app) {
+        return "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+    }
+}
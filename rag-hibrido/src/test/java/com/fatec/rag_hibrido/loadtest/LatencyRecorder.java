@@ -0,0 +1,52 @@
+package com.fatec.rag_hibrido.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Acumula as latências (em nanossegundos) de um endpoint e calcula percentis
+ * ao final da execução.
+ */
+public class LatencyRecorder {
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+
+    public synchronized void record(long latencyNanos, boolean success) {
+        if (!success) {
+            errors++;
+        }
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = latencyNanos;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public synchronized long errors() {
+        return errors;
+    }
+
+    /**
+     * Percentil pelo método nearest-rank, em milissegundos.
+     */
+    public synchronized double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0.0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count, rank) - 1)] / 1_000_000.0;
+    }
+
+    public synchronized double maxMillis() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max / 1_000_000.0;
+    }
+}
@@ -0,0 +1,125 @@
+package com.fatec.rag_hibrido.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fatec.rag_hibrido.RagHibridoApplication;
+
+/**
+ * Instância da aplicação em uma JVM própria (heap, GC e threads separados),
+ * usando o classpath do teste. Opcionalmente fixa o processo em um conjunto de
+ * CPUs com taskset (Linux), para que os nós não disputem os mesmos núcleos.
+ * A saída vai para target/loadtest-logs/&lt;nome&gt;.log.
+ */
+public class NodeProcess implements AutoCloseable {
+
+    private final String name;
+    private final Process process;
+    private final int port;
+    private final Path log;
+
+    /**
+     * @param properties propriedades da aplicação (passadas como --chave=valor)
+     * @param heap       valor de -Xmx, por exemplo "512m"
+     * @param cpus       lista de CPUs do taskset (ex.: "2-3"), ou null para não
+     *                   fixar
+     */
+    public NodeProcess(String name, Map<String, String> properties, String heap, String cpus) throws IOException {
+        this.name = name;
+        this.port = freePort();
+        this.log = Paths.get("target", "loadtest-logs", name + ".log");
+        Files.createDirectories(log.getParent());
+
+        List<String> command = new ArrayList<>();
+        if (cpus != null && !cpus.isBlank()) {
+            command.addAll(List.of("taskset", "-c", cpus));
+        }
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + heap);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), RagHibridoApplication.class.getName()));
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=jdbc:h2:mem:" + name);
+        properties.forEach((key, value) -> command.add("--" + key + "=" + value));
+
+        this.process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    /**
+     * Sobe uma instância apontando chat e embeddings para os servidores
+     * simulados.
+     */
+    public static NodeProcess start(String name, StubModelServer chat, StubModelServer embeddings,
+            Map<String, String> extraProperties, String heap, String cpus) throws Exception {
+        Map<String, String> properties = new HashMap<>(Map.of(
+                "ollama.base-url", chat.baseUrl(),
+                "ollama.model.name", "stub-chat",
+                "rag.embedding.ollama-base-url", embeddings.baseUrl(),
+                "rag.embedding.ollama-model", "stub-embedding"));
+        properties.putAll(extraProperties);
+        NodeProcess node = new NodeProcess(name, properties, heap, cpus);
+        node.awaitReady(Duration.ofSeconds(120));
+        return node;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    private void awaitReady(Duration timeout) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl() + "/api/rag/metrics"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Nó " + name + " encerrou ao subir; veja " + log.toAbsolutePath());
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Ainda subindo
+            }
+            Thread.sleep(250);
+        }
+        close();
+        throw new IllegalStateException("Nó " + name + " não ficou pronto; veja " + log.toAbsolutePath());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+}
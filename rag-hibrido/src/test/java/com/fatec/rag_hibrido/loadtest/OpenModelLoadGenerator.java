@@ -0,0 +1,112 @@
+package com.fatec.rag_hibrido.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Gerador de carga em modelo aberto: as requisições chegam em uma taxa fixa,
+ * independentemente de as anteriores já terem terminado (como o
+ * constantUsersPerSec do Gatling). A latência é medida a partir do instante
+ * em que a requisição deveria ter sido enviada, para que atrasos do próprio
+ * gerador não escondam a fila do servidor (coordinated omission).
+ */
+public class OpenModelLoadGenerator {
+
+    /**
+     * Tipo de requisição do mix de tráfego, sorteado proporcionalmente ao peso.
+     */
+    public record Scenario(String endpoint, double weight, Supplier<HttpRequest> request) {
+    }
+
+    private final HttpClient client;
+    private final Random random;
+
+    public OpenModelLoadGenerator(long seed) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.random = new Random(seed);
+    }
+
+    public Report run(double ratePerSecond, Duration duration, List<Scenario> scenarios) {
+        double totalWeight = scenarios.stream().mapToDouble(Scenario::weight).sum();
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        scenarios.forEach(s -> recorders.putIfAbsent(s.endpoint(), new LatencyRecorder()));
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long arrivals = (long) (duration.toNanos() / intervalNanos);
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < arrivals; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Scenario scenario = pick(scenarios, totalWeight);
+            LatencyRecorder recorder = recorders.get(scenario.endpoint());
+            inFlight.add(client.sendAsync(scenario.request().get(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> recorder.record(System.nanoTime() - intended,
+                            error == null && response.statusCode() < 400)));
+        }
+
+        try {
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).get(2, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            // Requisições pendentes ou com erro já foram contabilizadas
+        }
+        return new Report(recorders, System.nanoTime() - start);
+    }
+
+    private Scenario pick(List<Scenario> scenarios, double totalWeight) {
+        double r = random.nextDouble() * totalWeight;
+        for (Scenario scenario : scenarios) {
+            r -= scenario.weight();
+            if (r < 0) {
+                return scenario;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    /**
+     * Resultado por endpoint: vazão, erros e percentis de latência.
+     */
+    public record Report(Map<String, LatencyRecorder> recorders, long elapsedNanos) {
+
+        public long totalErrors() {
+            return recorders.values().stream().mapToLong(LatencyRecorder::errors).sum();
+        }
+
+        public long totalRequests() {
+            return recorders.values().stream().mapToLong(LatencyRecorder::count).sum();
+        }
+
+        public void print(String title) {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            System.out.println("\n" + "=".repeat(96));
+            System.out.println(title);
+            System.out.println("=".repeat(96));
+            System.out.printf("%-28s %8s %7s %10s %10s %10s %10s %10s%n",
+                    "endpoint", "reqs", "erros", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+            recorders.forEach((endpoint, r) -> System.out.printf(
+                    "%-28s %8d %7d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    endpoint, r.count(), r.errors(), r.count() / seconds,
+                    r.percentileMillis(50), r.percentileMillis(95), r.percentileMillis(99), r.maxMillis()));
+        }
+    }
+}
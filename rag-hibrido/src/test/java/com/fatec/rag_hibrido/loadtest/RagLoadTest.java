@@ -0,0 +1,144 @@
+package com.fatec.rag_hibrido.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fatec.rag_hibrido.RagHibridoApplication;
+
+/**
+ * Teste de carga ponta a ponta: sobe a aplicação em uma porta aleatória,
+ * apontando chat e embeddings para servidores simulados (StubModelServer), e
+ * dispara tráfego misto de ingestão e consulta em taxa fixa.
+ * Não roda no build normal; para executar:
+ *
+ * mvn -Ploadtest test -Dloadtest.rate=20 -Dloadtest.durationSeconds=30
+ *
+ * Parâmetros (System properties): loadtest.rate (req/s), loadtest.durationSeconds,
+ * loadtest.ingestRatio (fração de ingestões no mix), loadtest.seedDocuments,
+ * loadtest.chat.latencyMs, loadtest.chat.jitterMs, loadtest.embedding.latencyMs,
+ * loadtest.embedding.jitterMs e loadtest.maxErrorRate.
+ */
+@Tag("loadtest")
+public class RagLoadTest {
+
+    static final String[] VOCABULARY = {
+            "inteligência", "artificial", "medicina", "aprendizado", "máquina", "redes", "neurais",
+            "python", "dados", "ciência", "brasil", "geografia", "economia", "contrato", "jurídico",
+            "cláusula", "processo", "tribunal", "software", "arquitetura", "banco", "índice", "busca",
+            "documento", "modelo", "linguagem", "semântica", "vetor", "consulta", "resposta" };
+
+    @Test
+    void mixedIngestAndQueryTraffic() throws Exception {
+        double rate = doubleProperty("loadtest.rate", 20);
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.durationSeconds", 30));
+        double ingestRatio = doubleProperty("loadtest.ingestRatio", 0.1);
+
+        try (StubModelServer chat = new StubModelServer(Long.getLong("loadtest.chat.latencyMs", 200),
+                Long.getLong("loadtest.chat.jitterMs", 100));
+                StubModelServer embeddings = new StubModelServer(Long.getLong("loadtest.embedding.latencyMs", 5),
+                        Long.getLong("loadtest.embedding.jitterMs", 5));
+                ConfigurableApplicationContext app = startApp(chat, embeddings, Map.of())) {
+
+            String baseUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+            seed(baseUrl, Integer.getInteger("loadtest.seedDocuments", 50));
+
+            OpenModelLoadGenerator.Report report = new OpenModelLoadGenerator(42).run(rate, duration, List.of(
+                    new OpenModelLoadGenerator.Scenario("POST /api/rag/ingest", ingestRatio,
+                            () -> post(baseUrl + "/api/rag/ingest", ingestBody(1))),
+                    new OpenModelLoadGenerator.Scenario("POST /api/rag/query", 1 - ingestRatio,
+                            () -> post(baseUrl + "/api/rag/query", queryBody()))));
+
+            report.print(String.format("Carga aberta: %.1f req/s por %ds (chat %dms, embeddings %dms)",
+                    rate, duration.toSeconds(), Long.getLong("loadtest.chat.latencyMs", 200),
+                    Long.getLong("loadtest.embedding.latencyMs", 5)));
+            System.out.println("Chamadas simuladas - chat: " + chat.chatCalls()
+                    + ", embeddings: " + embeddings.embeddingCalls());
+
+            assertTrue(report.totalRequests() > 0);
+            // Sem isso, uma aplicação que não usa os servidores simulados (BGE local,
+            // fallback extrativo) passaria medindo outra coisa
+            assertTrue(chat.chatCalls() > 0, "O chat simulado não foi chamado");
+            assertTrue(embeddings.embeddingCalls() > 0, "Os embeddings simulados não foram chamados");
+            assertTrue(report.totalErrors() <= report.totalRequests() * doubleProperty("loadtest.maxErrorRate", 0.01),
+                    "Taxa de erros acima do limite: " + report.totalErrors() + "/" + report.totalRequests());
+        }
+    }
+
+    /**
+     * Sobe uma instância da aplicação em porta aleatória usando os servidores
+     * simulados; propriedades extras sobrescrevem as padrão. Tudo vai como
+     * argumento de linha de comando (--chave=valor), como no NodeProcess:
+     * SpringApplicationBuilder.properties só define padrões, que perdem para o
+     * application.properties.
+     */
+    static ConfigurableApplicationContext startApp(StubModelServer chat, StubModelServer embeddings,
+            Map<String, Object> extraProperties) {
+        Map<String, Object> properties = new HashMap<>(Map.of(
+                "server.port", "0",
+                "spring.datasource.url", "jdbc:h2:mem:loadtest-" + System.nanoTime(),
+                "ollama.base-url", chat.baseUrl(),
+                "ollama.model.name", "stub-chat",
+                "rag.embedding.ollama-base-url", embeddings.baseUrl(),
+                "rag.embedding.ollama-model", "stub-embedding"));
+        properties.putAll(extraProperties);
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(RagHibridoApplication.class).run(args);
+    }
+
+    static void seed(String baseUrl, int documents) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(post(baseUrl + "/api/rag/ingest", ingestBody(documents)),
+                HttpResponse.BodyHandlers.ofString());
+        assertTrue(response.statusCode() < 400, "Falha na carga inicial: " + response.body());
+    }
+
+    static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    static String ingestBody(int documents) {
+        List<String> docs = new ArrayList<>();
+        for (int i = 0; i < documents; i++) {
+            docs.add("{\"content\":\"" + sentence(25) + "\",\"metadata\":{\"fonte\":\"loadtest\"}}");
+        }
+        return "{\"documents\":[" + String.join(",", docs) + "]}";
+    }
+
+    static String queryBody() {
+        return "{\"query\":\"" + sentence(4) + "\"}";
+    }
+
+    static String sentence(int words) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(i == 0 ? "" : " ").append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+        }
+        return text.append('.').toString();
+    }
+
+    static double doubleProperty(String key, double defaultValue) {
+        return Double.parseDouble(System.getProperty(key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,178 @@
+package com.fatec.rag_hibrido.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidor HTTP que imita a API do Ollama ("/api/chat" e "/api/embeddings")
+ * para que o caminho HTTP real (RagController -> HybridRAGSystem) possa ser
+ * exercitado sem um Ollama em localhost:11434 nem chave da OpenAI.
+ * Cada chamada espera latencyMs + U(0, jitterMs) antes de responder.
+ * Os embeddings são determinísticos (hashing das palavras do texto), então
+ * consultas e documentos com as mesmas palavras ficam próximos no espaço
+ * vetorial e a busca semântica continua retornando resultados.
+ */
+public class StubModelServer implements AutoCloseable {
+    static final int DIMENSIONS = 384;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final AtomicLong chatCalls = new AtomicLong();
+    private final AtomicLong embeddingCalls = new AtomicLong();
+
+    public StubModelServer(long latencyMs, long jitterMs) {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        try {
+            this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao iniciar servidor simulado", e);
+        }
+        // Cada requisição dorme pela latência simulada, então não podem ser
+        // atendidas em série
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "stub-model");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/chat", this::handleChat);
+        server.createContext("/api/embeddings", this::handleEmbeddings);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long chatCalls() {
+        return chatCalls.get();
+    }
+
+    public long embeddingCalls() {
+        return embeddingCalls.get();
+    }
+
+    private void handleChat(HttpExchange exchange) throws IOException {
+        readBody(exchange);
+        chatCalls.incrementAndGet();
+        simulateLatency();
+        respond(exchange, "{\"model\":\"stub\",\"created_at\":\"2024-01-01T00:00:00Z\","
+                + "\"message\":{\"role\":\"assistant\",\"content\":\"Resposta simulada.\"},"
+                + "\"done\":true,\"prompt_eval_count\":1,\"eval_count\":1}");
+    }
+
+    private void handleEmbeddings(HttpExchange exchange) throws IOException {
+        String body = readBody(exchange);
+        embeddingCalls.incrementAndGet();
+        simulateLatency();
+
+        float[] vector = embed(extractPrompt(body));
+        StringBuilder json = new StringBuilder(DIMENSIONS * 10).append("{\"embedding\":[");
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(vector[i]);
+        }
+        respond(exchange, json.append("]}").toString());
+    }
+
+    /**
+     * Bag-of-words com hashing: cada palavra soma +1/-1 em uma dimensão e o
+     * vetor é normalizado.
+     */
+    static float[] embed(String text) {
+        float[] vector = new float[DIMENSIONS];
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            int hash = token.hashCode();
+            vector[Math.floorMod(hash, DIMENSIONS)] += (hash & 0x40000000) == 0 ? 1f : -1f;
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            vector[0] = 1f;
+            return vector;
+        }
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= inv;
+        }
+        return vector;
+    }
+
+    /**
+     * Extrai o campo "prompt" do JSON sem depender de biblioteca; o texto é
+     * usado apenas para gerar o hash, então escapes podem ficar como estão.
+     */
+    static String extractPrompt(String body) {
+        int key = body.indexOf("\"prompt\"");
+        if (key < 0) {
+            return "";
+        }
+        int start = body.indexOf('"', body.indexOf(':', key) + 1) + 1;
+        StringBuilder prompt = new StringBuilder();
+        for (int i = start; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\\' && i + 1 < body.length()) {
+                prompt.append(body.charAt(++i));
+            } else if (c == '"') {
+                break;
+            } else {
+                prompt.append(c);
+            }
+        }
+        return prompt.toString();
+    }
+
+    private void simulateLatency() {
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}